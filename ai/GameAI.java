@@ -5,6 +5,7 @@ import game.sprite.SpriteManager;
 import game.util.GameEnvironment;
 
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import ai.comp.Analyzer;
 import ai.comp.Decider;
@@ -36,6 +37,22 @@ public class GameAI {
 	private Evaluator evaluator;
 	private GameEnvironment environment;
 
+	/**
+	 * The seeds of the last action, the cards played and the Zobrist key of
+	 * the hand before they were played.
+	 */
+	private ArrayList<Seed> lastSeeds;
+	private Cards lastPlayed;
+	private long lastHandKey;
+
+	/**
+	 * The maximum number of seeds and the time in milliseconds to evaluate
+	 * them, 0 for no limit. If any is set, the seeds are taken from a stream,
+	 * see Evaluator.evaluate(Iterator, int, long).
+	 */
+	private int seedLimit;
+	private long timeBudget;
+
 	/**
 	 * The constructor for the GameAI.
 	 * 
@@ -115,6 +132,61 @@ public class GameAI {
 		return evaluator;
 	}
 
+	/**
+	 * Set the pool to analyze the seeds. By default there is no pool, and the
+	 * seeds are analyzed one by one in the thread of the AI.
+	 * 
+	 * @param pool
+	 *            The pool, null to analyze the seeds in the current thread.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		analyzer.setPool(pool);
+	}
+
+	/**
+	 * Get the pool to analyze the seeds.
+	 * 
+	 * @return The pool, null if the seeds are analyzed in the current thread.
+	 */
+	public ForkJoinPool getPool() {
+		return analyzer.getPool();
+	}
+
+	/**
+	 * Set the limits of the evaluation of a turn. By default there is no
+	 * limit, and all seeds of the SeedGenerator are evaluated. Otherwise the
+	 * best seeds are taken from the stream of the SeedGenerator until the
+	 * limits are reached; at least one seed is evaluated.
+	 * 
+	 * @param limit
+	 *            The maximum number of seeds, 0 for no limit.
+	 * @param budget
+	 *            The time to take and analyze the seeds in milliseconds, 0
+	 *            for no limit.
+	 */
+	public void setLimits(int limit, long budget) {
+		this.seedLimit = limit;
+		this.timeBudget = budget;
+	}
+
+	/**
+	 * Get the maximum number of seeds of a turn.
+	 * 
+	 * @return The maximum number of seeds, 0 for no limit.
+	 */
+	public int getSeedLimit() {
+		return seedLimit;
+	}
+
+	/**
+	 * Get the time to evaluate the seeds of a turn.
+	 * 
+	 * @return The time in milliseconds, 0 for no limit.
+	 */
+	public long getTimeBudget() {
+		return timeBudget;
+	}
+
 	/**
 	 * The main method of the AI.
 	 * 
@@ -139,6 +211,8 @@ public class GameAI {
 	public synchronized void act(GameEnvironment env) {
 		// copy environment
 		this.environment = env;
+		// the probabilities of the last turn are not valid any more.
+		probCalc.reset();
 
 		// get some important cards.
 		Cards desk = environment.getCurrentDesk();
@@ -150,15 +224,36 @@ public class GameAI {
 		// for debug purpose.
 		report(env);
 
-		// generate the seed for the game AI.
-		ArrayList<Seed> seeds = seedGenerator.generateSeeds(p1Hand);
-		// for debug purpose.
-		report(seedGenerator);
+		ArrayList<Seed> seeds;
+		ArrayList<Evaluation> evaluations;
+		if (seedLimit > 0 || timeBudget > 0) {
+			// evaluate the best seeds of the stream within the limits. the
+			// streamed seeds are not all decompositions, thus are not kept.
+			evaluations = evaluator.evaluate(
+					seedGenerator.streamSeeds(p1Hand), seedLimit, timeBudget);
+			seeds = null;
+			// for debug purpose.
+			report(evaluator);
+		} else {
+			// generate the seed for the game AI. if the hand is the last one
+			// without the cards played, and the engine gives all
+			// decompositions, the seeds are derived from the last seeds.
+			if (lastSeeds != null && seedGenerator.canDeriveSeeds()
+					&& (lastHandKey ^ lastPlayed.getZobristKey()) == p1Hand
+							.getZobristKey()) {
+				seeds = seedGenerator.deriveSeeds(lastSeeds, lastPlayed,
+						p1Hand);
+			} else {
+				seeds = seedGenerator.generateSeeds(p1Hand);
+			}
+			// for debug purpose.
+			report(seedGenerator);
 
-		// generate evaluation from seeds.
-		ArrayList<Evaluation> evaluations = evaluator.evaluate(seeds);
-		// for debug purpose.
-		report(evaluator);
+			// generate evaluation from seeds.
+			evaluations = evaluator.evaluate(seeds);
+			// for debug purpose.
+			report(evaluator);
+		}
 
 		// get the cards for next action.
 		Cards cards = decider.chooseCards(evaluations);
@@ -175,6 +270,11 @@ public class GameAI {
 			}
 		}
 
+		// keep the seeds for the next action.
+		lastSeeds = seeds;
+		lastPlayed = cards;
+		lastHandKey = p1Hand.getZobristKey();
+
 		// add history for the cards.
 		recorder.addHistory(cards, Recorder.PLAYER1_ID);
 		// for debug purpose.
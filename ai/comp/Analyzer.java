@@ -1,23 +1,34 @@
 package ai.comp;
 
 import game.card.Cards;
+import game.card.PlayCode;
+import game.card.PlayIndex;
 import game.card.Rank;
 import game.util.GameEnvironment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import ai.GameAI;
 import ai.util.Actions;
 import ai.util.ProbabilityCalculator;
+import ai.util.RankHistogram;
 import ai.util.Seed;
 import ai.util.Summary;
 
 /**
  * The main function for the analyzer is to generate scores for seeds.
  * 
+ * The actions of each seed do not depend on the other seeds. If a pool is
+ * given, the actions of the seeds are created as tasks of the pool, and are
+ * put into the list in the order of the seeds, thus the result is the same as
+ * the one of a single thread.
+ * 
  * @author Riki
  * 
  */
@@ -37,6 +48,21 @@ public class Analyzer {
 	 * The comparator to compare the dominator with regard to value.
 	 */
 	private DominatorComparator dominatorComparator = new DominatorComparator();
+	/**
+	 * The context of the current turn, shared by all dominators.
+	 */
+	private AnalysisContext context;
+	/**
+	 * The pool to create the actions, null to create them in the current
+	 * thread.
+	 */
+	private ForkJoinPool pool;
+	/**
+	 * The debug text of the seed created by a task of the pool, which is
+	 * printed when the task is joined, thus the text of the seeds is printed
+	 * in order.
+	 */
+	private final ThreadLocal<StringBuilder> debugText = new ThreadLocal<StringBuilder>();
 
 	public Analyzer(GameAI gameAI) {
 		this.gameAI = gameAI;
@@ -52,50 +78,157 @@ public class Analyzer {
 	 * @return The list of actions.
 	 */
 	public ArrayList<Actions> createActionsList(ArrayList<Seed> seeds) {
+		return createActionsList(seeds, 0);
+	}
+
+	/**
+	 * Create the action list for the seeds analyzed before a deadline. The
+	 * deadline is checked before each seed but the first, thus the actions are
+	 * those of the first seeds, in order, and the time may exceed the
+	 * deadline by the analysis of one seed (with a pool, of the seeds in
+	 * progress).
+	 * 
+	 * @param seeds
+	 *            The seeds to be decide the sequence in which the cards are
+	 *            played.
+	 * @param deadline
+	 *            The deadline in milliseconds as System.currentTimeMillis, 0
+	 *            for no deadline.
+	 * @return The list of actions.
+	 */
+	public ArrayList<Actions> createActionsList(ArrayList<Seed> seeds,
+			long deadline) {
 		this.originSeeds = seeds;
-		initActionsList();
+		this.context = new AnalysisContext(gameAI.getEnvironment(),
+				gameAI.getProbCalc());
+		initActionsList(deadline);
 
 		return actionsList;
 	}
 
+	/**
+	 * Set the pool to create the actions.
+	 * 
+	 * @param pool
+	 *            The pool, null to create the actions in the current thread.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Get the pool to create the actions.
+	 * 
+	 * @return The pool, null if the actions are created in the current
+	 *         thread.
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
 	/**
 	 * Initialize the action list.
+	 * 
+	 * @param deadline
+	 *            The deadline, 0 for no deadline.
 	 */
-	private void initActionsList() {
+	private void initActionsList(long deadline) {
 
-		actionsList = new ArrayList<Actions>();
+		ArrayList<Actions> list = new ArrayList<Actions>();
 
 		/*
 		 * Summary -> [Actions, ...]
 		 */
 
 		Actions actions;
-		Seed seed;
 		Cards deskCards = gameAI.getRecorder().getLastCards();
 
-		/*
-		 * Two choices:
-		 * 
-		 * 1. Give reaction cards.
-		 * 
-		 * 2. Choose to pass.
-		 */
-		if (!deskCards.isEmpty()) {
+		if (pool == null) {
 			for (int i = 0; i < originSeeds.size(); i++) {
-				seed = originSeeds.get(i);
-				actions = createConstraintActions(seed, deskCards);
+				if (i > 0 && isOver(deadline)) {
+					break;
+				}
+				actions = createActions(originSeeds.get(i), deskCards);
 				if (actions != null) {
-					actionsList.add(actions);
+					list.add(actions);
 				}
 			}
 		} else {
+			/*
+			 * the type of the cards is computed on the first use, which sorts
+			 * the cards. the cards could be shared by seeds, thus the types
+			 * are computed before the tasks.
+			 */
+			deskCards.getCardsType();
 			for (int i = 0; i < originSeeds.size(); i++) {
-				seed = originSeeds.get(i);
-				actions = createFreeActions(seed);
-				actionsList.add(actions);
+				Seed seed = originSeeds.get(i);
+				for (int k = 0; k < seed.size(); k++) {
+					seed.get(k).getCardsType();
+				}
+			}
+
+			SeedTask[] tasks = new SeedTask[originSeeds.size()];
+			for (int i = 0; i < tasks.length; i++) {
+				tasks[i] = new SeedTask(originSeeds.get(i), deskCards);
+				pool.execute(tasks[i]);
+			}
+			for (int i = 0; i < tasks.length; i++) {
+				if (i > 0 && isOver(deadline)) {
+					/*
+					 * the tasks in progress use the context, thus they are
+					 * finished before the next analysis.
+					 */
+					for (int k = i; k < tasks.length; k++) {
+						tasks[k].cancel(false);
+					}
+					for (int k = i; k < tasks.length; k++) {
+						tasks[k].quietlyJoin();
+					}
+					break;
+				}
+				actions = tasks[i].join();
+				System.out.print(tasks[i].text);
+				if (actions != null) {
+					list.add(actions);
+				}
 			}
 		}
 
+		actionsList = list;
+	}
+
+	/**
+	 * Check whether a deadline is over.
+	 * 
+	 * @param deadline
+	 *            The deadline, 0 for no deadline.
+	 * @return true if the deadline is over.
+	 */
+	private static boolean isOver(long deadline) {
+		return deadline > 0 && System.currentTimeMillis() >= deadline;
+	}
+
+	/**
+	 * Create the actions of a seed.
+	 * 
+	 * Two choices:
+	 * 
+	 * 1. Give reaction cards.
+	 * 
+	 * 2. Choose to pass.
+	 * 
+	 * @param seed
+	 *            The seed.
+	 * @param deskCards
+	 *            The deskCards.
+	 * @return A sequence of actions, null if the seed could not react.
+	 */
+	private Actions createActions(Seed seed, Cards deskCards) {
+		if (!deskCards.isEmpty()) {
+			return createConstraintActions(seed, deskCards);
+		} else {
+			return createFreeActions(seed);
+		}
 	}
 
 	/**
@@ -140,38 +273,18 @@ public class Analyzer {
 		ArrayList<Cards> bCards = summary.getBombCards();
 
 		/*
-		 * Regular types: s, p, t, tp, mp, pt, f.
-		 */
-		ArrayList<Dominator> sDominators = createDominators(sCards);
-		ArrayList<Dominator> pDominators = createDominators(pCards);
-		ArrayList<Dominator> tDominators = createDominators(tCards);
-		ArrayList<Dominator> tpDominators = createDominators(tpCards);
-		ArrayList<Dominator> mpDominators = createDominators(mpCards);
-		ArrayList<Dominator> mtDominators = createDominators(mtCards);
-		ArrayList<Dominator> fDominators = createDominators(fCards);
-		ArrayList<Dominator> bDominators = createDominators(bCards);
-
-		printList(sDominators);
-		printList(pDominators);
-		printList(tDominators);
-		printList(tpDominators);
-		printList(mpDominators);
-		printList(mtDominators);
-		printList(fDominators);
-		printList(bDominators);
-
-		/*
-		 * save the value to the actions.
+		 * save the value to the actions. Regular types: s, p, t, tp, mp, pt,
+		 * f. only the dominators of the types present are created.
 		 */
 		double value = 0;
-		value += calcRisk(sDominators);
-		value += calcRisk(pDominators);
-		value += calcRisk(tDominators);
-		value += calcRisk(tpDominators);
-		value += calcRisk(mpDominators);
-		value += calcRisk(mtDominators);
-		value += calcRisk(fDominators);
-		value += calcRisk(bDominators);
+		value += calcTypeRisk(sCards);
+		value += calcTypeRisk(pCards);
+		value += calcTypeRisk(tCards);
+		value += calcTypeRisk(tpCards);
+		value += calcTypeRisk(mpCards);
+		value += calcTypeRisk(mtCards);
+		value += calcTypeRisk(fCards);
+		value += calcTypeRisk(bCards);
 
 		ArrayList<Dominator> dominators = createDominators(candidates);
 		Collections.sort(dominators, dominatorComparator);
@@ -186,18 +299,55 @@ public class Analyzer {
 		return actions;
 	}
 
+	/**
+	 * Calculate the risk of the cards of a type, creating the dominators only
+	 * if there are cards of the type.
+	 * 
+	 * @param cardsArray
+	 *            The cards of the type.
+	 * @return The risk.
+	 */
+	private double calcTypeRisk(ArrayList<Cards> cardsArray) {
+		if (cardsArray.isEmpty()) {
+			return 0;
+		}
+		ArrayList<Dominator> dominators = createDominators(cardsArray);
+		printList(dominators);
+		return calcRisk(dominators);
+	}
+
+	/**
+	 * Calculate the risk of the dominators of a type: the highest risk is
+	 * paired with the lowest one, and so on; the middle one is left alone.
+	 * 
+	 * @param dominators
+	 *            The dominators, not changed.
+	 * @return The risk.
+	 */
 	private double calcRisk(ArrayList<Dominator> dominators) {
-		Collections.sort(dominators, dominatorComparator);
+		int n = dominators.size();
+		if (n == 0) {
+			return 0;
+		} else if (n == 1) {
+			return dominators.get(0).risk;
+		} else if (n == 2) {
+			return dominators.get(0).risk * dominators.get(1).risk;
+		}
+
+		double[] risks = new double[n];
+		for (int i = 0; i < n; i++) {
+			risks[i] = dominators.get(i).risk;
+		}
+		Arrays.sort(risks);
 
 		double value = 0;
 
-		for (int i = 0; i < dominators.size() / 2; i++) {
-			value += dominators.get(i).risk
-					* dominators.get(dominators.size() - i - 1).risk;
+		for (int i = 0; i < n / 2; i++) {
+			value += risks[n - i - 1] * risks[i];
 		}
 
-		if (dominators.size() % 2 == 1) {
-			value += dominators.get(dominators.size() / 2).risk;
+		if (n % 2 == 1) {
+			value += risks[n / 2];
 		}
 
 		return value;
@@ -277,10 +427,7 @@ public class Analyzer {
 			sequence.add(dominators.get(i).cards);
 		}
 
-		Cards p1All = gameAI.getEnvironment().getP1All();
-		Cards p2Desk = gameAI.getEnvironment().getP2Desk();
-
-		int numOfPlayer2 = p1All.getSize() - p2Desk.getSize();
+		int numOfPlayer2 = context.lengthOfB;
 
 		if (numOfPlayer2 == 1 || dominators.size() == 2) {
 			Collections.reverse(sequence);
@@ -299,8 +446,13 @@ public class Analyzer {
 	 *            The list to be printed.
 	 */
 	private void printList(ArrayList<?> list) {
+		StringBuilder text = debugText.get();
 		for (int i = 0; i < list.size(); i++) {
-			System.out.println(list.get(i));
+			if (text == null) {
+				System.out.println(list.get(i));
+			} else {
+				text.append(list.get(i)).append(System.lineSeparator());
+			}
 		}
 	}
 
@@ -341,6 +493,169 @@ public class Analyzer {
 				recorder.getCardHistory().size() - 1);
 	}
 
+	/**
+	 * Get the next higher rank than the given {@code r}.
+	 * 
+	 * @param r
+	 *            the current rank
+	 * @return a higher rank
+	 */
+	private static Rank getHigherRank(Rank r) {
+		switch (r) {
+		case ACE:
+			return Rank.DEUCE;
+		case DEUCE:
+			return null;
+		case THREE:
+			return Rank.FOUR;
+		case FOUR:
+			return Rank.FIVE;
+		case FIVE:
+			return Rank.SIX;
+		case SIX:
+			return Rank.SEVEN;
+		case SEVEN:
+			return Rank.EIGHT;
+		case EIGHT:
+			return Rank.NINE;
+		case NINE:
+			return Rank.TEN;
+		case TEN:
+			return Rank.JACK;
+		case JACK:
+			return Rank.QUEEN;
+		case QUEEN:
+			return Rank.KING;
+		case KING:
+			return Rank.ACE;
+		}
+		return null;
+	}
+
+	/**
+	 * The context of a turn for the dominators: the unknown cards and the
+	 * length of the hand of the opponent are computed once, and shared by all
+	 * dominators of the turn. The fields are not changed after the
+	 * construction.
+	 * 
+	 * The risk of a play only depends on the play and the context, not on the
+	 * seed, thus the risks are kept in a table indexed by the index of the
+	 * play in PlayIndex. Each risk is computed by the first dominator of the
+	 * play in the turn.
+	 * 
+	 * @author Riki
+	 * 
+	 */
+	private static class AnalysisContext {
+		/*
+		 * The ranks of the unknown cards: the set A.
+		 */
+		final RankHistogram setA;
+		/*
+		 * The number of cards on the hand of the opponent: the length of B.
+		 */
+		final int lengthOfB;
+		final ProbabilityCalculator probCalc;
+		/*
+		 * The probabilities of a pair in the given length, NaN if not computed.
+		 */
+		private final double[] pairs;
+		/*
+		 * The risks of the plays by the index in PlayIndex, NaN if not
+		 * computed.
+		 */
+		private final double[] risks;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param env
+		 *            The game environment of the turn.
+		 * @param probCalc
+		 *            The probability calculator.
+		 */
+		public AnalysisContext(GameEnvironment env,
+				ProbabilityCalculator probCalc) {
+			this.probCalc = probCalc;
+			setA = new RankHistogram(env.getUnknownCards());
+			lengthOfB = env.getP1All().getSize() - env.getP2Desk().getSize();
+			pairs = new double[Math.max(lengthOfB + 1, 0)];
+			Arrays.fill(pairs, Double.NaN);
+			risks = new double[PlayIndex.size()];
+			Arrays.fill(risks, Double.NaN);
+		}
+
+		/**
+		 * Get the risk of a play.
+		 * 
+		 * @param index
+		 *            The index of the play in PlayIndex.
+		 * @return The risk, NaN if not computed or the play is not indexed.
+		 */
+		synchronized double getRisk(int index) {
+			return (index < 0) ? Double.NaN : risks[index];
+		}
+
+		/**
+		 * Keep the risk of a play.
+		 * 
+		 * @param index
+		 *            The index of the play in PlayIndex, -1 if not indexed.
+		 * @param risk
+		 *            The risk.
+		 */
+		synchronized void setRisk(int index, double risk) {
+			if (index >= 0) {
+				risks[index] = risk;
+			}
+		}
+
+		/**
+		 * Calculate the pair in given length, computed once for each length.
+		 * 
+		 * @param length
+		 *            The length.
+		 * @return the value.
+		 */
+		synchronized double getPair(int length) {
+			if (length < 0 || length >= pairs.length) {
+				return calcPair(length);
+			}
+			if (Double.isNaN(pairs[length])) {
+				pairs[length] = calcPair(length);
+			}
+			return pairs[length];
+		}
+
+		/**
+		 * Calculate the pair in given length
+		 * 
+		 * @param length
+		 *            The length.
+		 * @return the value.
+		 */
+		private double calcPair(int length) {
+			RankHistogram setS = new RankHistogram();
+
+			Rank HigherRank = getHigherRank(Rank.THREE);
+			double prob = 0;
+			while (HigherRank != null) {
+				// 2
+				setS.add(HigherRank, 2);
+				prob += probCalc.calc(setA, length, setS);
+				// 3
+				setS.add(HigherRank);
+				prob += probCalc.calc(setA, length, setS);
+				// 4
+				setS.add(HigherRank);
+				prob += probCalc.calc(setA, length, setS);
+				setS.clear();
+				HigherRank = getHigherRank(HigherRank);
+			}
+			return prob;
+		}
+	}
+
 	/**
 	 * A helper class to create the value for cards in current game environment.
 	 * 
@@ -353,9 +668,8 @@ public class Analyzer {
 		 * The lower, the better cards.
 		 */
 		double risk;
-		GameEnvironment env;
-		Cards p1All, p2Desk, unkown;
-		List<Rank> listA;
+		AnalysisContext context;
+		RankHistogram setA;
 		int lengthOfB;
 		ProbabilityCalculator probCalc;
 
@@ -366,16 +680,20 @@ public class Analyzer {
 		 *            The cards to be analyzed.
 		 */
 		public Dominator(Cards cs) {
-			probCalc = gameAI.getProbCalc();
-			env = gameAI.getEnvironment();
-			p1All = env.getP1All();
-			p2Desk = env.getP2Desk();
-			unkown = env.getUnknownCards();
-			listA = getRanks(unkown);
-			lengthOfB = p1All.getSize() - p2Desk.getSize();
-			risk = 0;
+			context = Analyzer.this.context;
+			probCalc = context.probCalc;
+			setA = context.setA;
+			lengthOfB = context.lengthOfB;
 			this.cards = cs;
-			initRisk();
+
+			// the risk of the same play is computed once in a turn.
+			int index = PlayIndex.indexOf(PlayCode.of(cs));
+			risk = context.getRisk(index);
+			if (Double.isNaN(risk)) {
+				risk = 0;
+				initRisk();
+				context.setRisk(index, risk);
+			}
 		}
 
 		/**
@@ -424,18 +742,15 @@ public class Analyzer {
 		 * initialize the value for cards: Bomb
 		 */
 		private void initB() {
-			List<Rank> listS = new ArrayList<Rank>();
+			RankHistogram setS = new RankHistogram();
 
 			Rank HigherRank = getHigherRank(cards.getCard(0).getRank());
 
 			while (HigherRank != null) {
 				// 4
-				listS.add(HigherRank);
-				listS.add(HigherRank);
-				listS.add(HigherRank);
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
-				listS.clear();
+				setS.add(HigherRank, 4);
+				risk += probCalc.calc(setA, lengthOfB, setS);
+				setS.clear();
 				HigherRank = getHigherRank(HigherRank);
 			}
 		}
@@ -457,7 +772,7 @@ public class Analyzer {
 		 * initialize the value for cards: Multi-Triple
 		 */
 		private void initMT() {
-			List<Rank> listS = new ArrayList<Rank>();
+			RankHistogram setS = new RankHistogram();
 
 			int numCount = cards.getSize() / 3;
 
@@ -475,11 +790,9 @@ public class Analyzer {
 			while (containsNull(higherRanks)) {
 				// 3 3 ... 3
 				for (int i = 0; i < higherRanks.size(); i++) {
-					listS.add(higherRanks.get(i));
-					listS.add(higherRanks.get(i));
-					listS.add(higherRanks.get(i));
+					setS.add(higherRanks.get(i), 3);
 				}
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 				ranks = new ArrayList<Rank>();
 				for (int i = 0; i < higherRanks.size(); i++) {
 					ranks.add(getHigherRank(higherRanks.get(i)));
@@ -493,7 +806,7 @@ public class Analyzer {
 		 * initialize the value for cards: multi-pair
 		 */
 		private void initMP() {
-			List<Rank> listS = new ArrayList<Rank>();
+			RankHistogram setS = new RankHistogram();
 
 			int numCount = cards.getSize() / 2;
 
@@ -511,10 +824,9 @@ public class Analyzer {
 			while (containsNull(higherRanks)) {
 				// 2 2 ... 2
 				for (int i = 0; i < higherRanks.size(); i++) {
-					listS.add(higherRanks.get(i));
-					listS.add(higherRanks.get(i));
+					setS.add(higherRanks.get(i), 2);
 				}
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 
 				ranks = new ArrayList<Rank>();
 				for (int i = 0; i < higherRanks.size(); i++) {
@@ -545,7 +857,7 @@ public class Analyzer {
 		 * initialize the value for cards: Triple-with-pair.
 		 */
 		private void initTP() {
-			List<Rank> listS = new ArrayList<Rank>();
+			RankHistogram setS = new RankHistogram();
 
 			Rank highRank = null;
 
@@ -558,70 +870,37 @@ public class Analyzer {
 			double prob = 0;
 			while (highRank != null) {
 				// 3
-				listS.add(highRank);
-				listS.add(highRank);
-				listS.add(highRank);
-				prob = probCalc.calc(listA, lengthOfB, listS);
-				prob *= calcPair(lengthOfB - 3);
+				setS.add(highRank, 3);
+				prob = probCalc.calc(setA, lengthOfB, setS);
+				prob *= context.getPair(lengthOfB - 3);
 				risk += prob;
 
 				// 4
-				listS.add(highRank);
-				prob = probCalc.calc(listA, lengthOfB, listS);
-				prob *= calcPair(lengthOfB - 4);
+				setS.add(highRank);
+				prob = probCalc.calc(setA, lengthOfB, setS);
+				prob *= context.getPair(lengthOfB - 4);
 				risk += prob;
-				listS.clear();
+				setS.clear();
 				highRank = getHigherRank(highRank);
 			}
 		}
 
-		/**
-		 * Calculate the pair in given length
-		 * 
-		 * @param lengthOfB
-		 *            The length.
-		 * @return the value.
-		 */
-		private double calcPair(int lengthOfB) {
-			List<Rank> listS = new ArrayList<Rank>();
-
-			Rank HigherRank = getHigherRank(Rank.THREE);
-			double prob = 0;
-			while (HigherRank != null) {
-				// 2
-				listS.add(HigherRank);
-				listS.add(HigherRank);
-				prob += probCalc.calc(listA, lengthOfB, listS);
-				// 3
-				listS.add(HigherRank);
-				prob += probCalc.calc(listA, lengthOfB, listS);
-				// 4
-				listS.add(HigherRank);
-				prob += probCalc.calc(listA, lengthOfB, listS);
-				listS.clear();
-				HigherRank = getHigherRank(HigherRank);
-			}
-			return prob;
-		}
-
 		/**
 		 * initialize the value for cards: Triple
 		 */
 		private void initT() {
-			List<Rank> listS = new ArrayList<Rank>();
+			RankHistogram setS = new RankHistogram();
 
 			Rank HigherRank = getHigherRank(cards.getCard(0).getRank());
 
 			while (HigherRank != null) {
 				// 3
-				listS.add(HigherRank);
-				listS.add(HigherRank);
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				setS.add(HigherRank, 3);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 				// 4
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
-				listS.clear();
+				setS.add(HigherRank);
+				risk += probCalc.calc(setA, lengthOfB, setS);
+				setS.clear();
 				HigherRank = getHigherRank(HigherRank);
 			}
 
@@ -631,22 +910,21 @@ public class Analyzer {
 		 * initialize the value for cards: Pair
 		 */
 		private void initP() {
-			List<Rank> listS = new ArrayList<Rank>();
+			RankHistogram setS = new RankHistogram();
 
 			Rank HigherRank = getHigherRank(cards.getCard(0).getRank());
 
 			while (HigherRank != null) {
 				// 2
-				listS.add(HigherRank);
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				setS.add(HigherRank, 2);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 				// 3
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				setS.add(HigherRank);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 				// 4
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
-				listS.clear();
+				setS.add(HigherRank);
+				risk += probCalc.calc(setA, lengthOfB, setS);
+				setS.clear();
 				HigherRank = getHigherRank(HigherRank);
 			}
 
@@ -657,90 +935,65 @@ public class Analyzer {
 		 */
 		private void initS() {
 			/*
-			 * listA: Unknown Cards.
+			 * setA: Unknown Cards.
 			 * 
 			 * lengthOfB: Number of Cards in Opponent.
 			 * 
-			 * listS: To be calculated cards.
+			 * setS: To be calculated cards.
 			 */
 
-			List<Rank> listS = new ArrayList<Rank>();
+			RankHistogram setS = new RankHistogram();
 
 			Rank HigherRank = getHigherRank(cards.getCard(0).getRank());
 
 			while (HigherRank != null) {
 				// 1
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				setS.add(HigherRank);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 				// 2
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				setS.add(HigherRank);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 				// 3
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
+				setS.add(HigherRank);
+				risk += probCalc.calc(setA, lengthOfB, setS);
 				// 4
-				listS.add(HigherRank);
-				risk += probCalc.calc(listA, lengthOfB, listS);
-				listS.clear();
+				setS.add(HigherRank);
+				risk += probCalc.calc(setA, lengthOfB, setS);
+				setS.clear();
 				HigherRank = getHigherRank(HigherRank);
 			}
 		}
+	}
 
-		/**
-		 * Get the next higher rank than the given {@code r}.
-		 * 
-		 * @param r
-		 *            the current rank
-		 * @return a higher rank
-		 */
-		private Rank getHigherRank(Rank r) {
-			switch (r) {
-			case ACE:
-				return Rank.DEUCE;
-			case DEUCE:
-				return null;
-			case THREE:
-				return Rank.FOUR;
-			case FOUR:
-				return Rank.FIVE;
-			case FIVE:
-				return Rank.SIX;
-			case SIX:
-				return Rank.SEVEN;
-			case SEVEN:
-				return Rank.EIGHT;
-			case EIGHT:
-				return Rank.NINE;
-			case NINE:
-				return Rank.TEN;
-			case TEN:
-				return Rank.JACK;
-			case JACK:
-				return Rank.QUEEN;
-			case QUEEN:
-				return Rank.KING;
-			case KING:
-				return Rank.ACE;
-			}
-			return null;
-		}
+	/**
+	 * The creation of the actions of a seed, as a task of the pool.
+	 */
+	private class SeedTask extends RecursiveTask<Actions> {
+
+		private static final long serialVersionUID = 1L;
 
+		private Seed seed;
+		private Cards deskCards;
 		/**
-		 * Turn cards into ranks.
-		 * 
-		 * @param cards
-		 *            the cards.
-		 * @return a list of ranks.
+		 * The debug text of the seed, printed when the task is joined.
 		 */
-		private List<Rank> getRanks(Cards cards) {
+		private String text = "";
 
-			List<Rank> list = new ArrayList<Rank>(cards.getSize());
+		public SeedTask(Seed seed, Cards deskCards) {
+			this.seed = seed;
+			this.deskCards = deskCards;
+		}
 
-			for (int i = 0; i < cards.getSize(); i++) {
-				list.add(cards.getCard(i).getRank());
+		@Override
+		protected Actions compute() {
+			StringBuilder sb = new StringBuilder();
+			debugText.set(sb);
+			try {
+				return createActions(seed, deskCards);
+			} finally {
+				debugText.remove();
+				text = sb.toString();
 			}
-
-			return list;
 		}
 	}
 
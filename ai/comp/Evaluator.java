@@ -1,6 +1,7 @@
 package ai.comp;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 
 import ai.GameAI;
 import ai.util.Actions;
@@ -51,6 +52,21 @@ public class Evaluator {
 	 * @return A list of evaluations.
 	 */
 	public ArrayList<Evaluation> evaluate(ArrayList<Seed> sds) {
+		return evaluate(sds, 0);
+	}
+
+	/**
+	 * Evaluate the seeds analyzed before a deadline, see
+	 * Analyzer.createActionsList.
+	 * 
+	 * @param sds
+	 *            The seeds to be evaluated.
+	 * @param deadline
+	 *            The deadline in milliseconds as System.currentTimeMillis, 0
+	 *            for no deadline.
+	 * @return A list of evaluations.
+	 */
+	private ArrayList<Evaluation> evaluate(ArrayList<Seed> sds, long deadline) {
 		this.seeds = sds;
 		evaluations = new ArrayList<Evaluation>();
 
@@ -58,7 +74,8 @@ public class Evaluator {
 		 * Summary -> [Actions] Actions -> Evaluation
 		 */
 		Analyzer analyser = gameAI.getAnalyzer();
-		ArrayList<Actions> actionsList = analyser.createActionsList(seeds);
+		ArrayList<Actions> actionsList = analyser.createActionsList(seeds,
+				deadline);
 
 		Evaluation evaluation;
 		for (int i = 0; i < actionsList.size(); i++) {
@@ -69,6 +86,40 @@ public class Evaluator {
 		return evaluations;
 	}
 
+	/**
+	 * Evaluate the best seeds of a stream. The seeds are taken and analyzed
+	 * until the limit is reached or the time is over. The first seed is always
+	 * taken and analyzed, thus there is an evaluation if there is any seed and
+	 * the AI could lead. The time is checked before each other seed is taken
+	 * and analyzed, thus the time may exceed the budget by the time to take or
+	 * to analyze one seed (with a pool, the seeds in progress).
+	 * 
+	 * @param sds
+	 *            The seeds to be evaluated, the best first.
+	 * @param limit
+	 *            The maximum number of seeds, 0 for no limit.
+	 * @param budget
+	 *            The time to take and analyze the seeds in milliseconds, 0
+	 *            for no limit.
+	 * @return A list of evaluations.
+	 */
+	public ArrayList<Evaluation> evaluate(Iterator<Seed> sds, int limit,
+			long budget) {
+		long deadline = (budget > 0) ? System.currentTimeMillis() + budget : 0;
+		ArrayList<Seed> taken = new ArrayList<Seed>();
+		while (limit <= 0 || taken.size() < limit) {
+			if (!taken.isEmpty() && deadline > 0
+					&& System.currentTimeMillis() >= deadline) {
+				break;
+			}
+			if (!sds.hasNext()) {
+				break;
+			}
+			taken.add(sds.next());
+		}
+		return evaluate(taken, deadline);
+	}
+
 	/**
 	 * Get the list of evaluations.
 	 * 
@@ -0,0 +1,348 @@
+package ai.comp;
+
+import game.card.Cards;
+import game.card.CardsClassifier;
+import game.card.CardsType;
+import game.card.IMoveVisitor;
+import game.card.LegalMoveGenerator;
+import game.card.PlayCode;
+import game.card.PlayIndex;
+import game.card.Rank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ai.util.CompactSeed;
+import ai.util.Seed;
+
+/**
+ * The HandDecomposer finds all decompositions of a hand: the ways to split the
+ * cards into valid plays. It is an alternative to the mutation of seeds in the
+ * SeedGenerator.
+ * 
+ * The hand is summarized by its rank-count signature (see CardsClassifier),
+ * since suits do not matter to the plays. The lowest rank of the remaining
+ * cards must belong to some play, so each play containing that rank is taken
+ * in turn, and the rest of the cards is decomposed recursively. The plays
+ * taken for the same lowest rank are in ascending order of their PlayCodes,
+ * thus each decomposition is found exactly once.
+ * 
+ * The decompositions of each remaining signature are memoized, thus the cost
+ * grows with the number of distinct sub-signatures, not with the number of
+ * paths leading to them. A decomposition is a sorted array of PlayCodes; the
+ * Seeds are created from them at the end, by picking the cards from the hand.
+ * 
+ * All types of plays are used, so the seeds are a superset of the ones given
+ * by the mutation: for example, the splits into TRIPLE_WITH_PAIR and BOMB are
+ * all found.
+ * 
+ * If a ForkJoinPool is given, the search is split by its first choice: the
+ * play taking the lowest card. Each choice is searched as a task of the pool,
+ * sharing the memo, and the results are joined in the order of the choices,
+ * thus the result is the same as the one of a single thread.
+ * 
+ * If a limit is given, the search gives up once the memo holds more
+ * decompositions than the limit, which bounds its memory and time.
+ * 
+ * @author Riki
+ * 
+ */
+public class HandDecomposer {
+
+	/**
+	 * The bits of the signature in a memo key. The index of the lowest play
+	 * allowed is kept above them.
+	 */
+	private static final int SIGNATURE_BITS = Rank.LEVELS
+			* CardsClassifier.BITS_PER_LEVEL;
+
+	/**
+	 * The memo of the decompositions, by the signature and the lowest play
+	 * allowed.
+	 */
+	private ConcurrentHashMap<Long, ArrayList<int[]>> memo;
+
+	/**
+	 * The pool to run the search, null to run in the current thread.
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * The maximum number of decompositions in the memo, 0 for no limit; the
+	 * number of decompositions in the memo, and whether the limit is
+	 * exceeded by the last search.
+	 */
+	private int limit;
+	private AtomicInteger count;
+	private volatile boolean exceeded;
+
+	/**
+	 * The constructor of the HandDecomposer.
+	 */
+	public HandDecomposer() {
+		memo = new ConcurrentHashMap<Long, ArrayList<int[]>>();
+		count = new AtomicInteger();
+	}
+
+	/**
+	 * Set the maximum number of decompositions in the memo.
+	 * 
+	 * @param limit
+	 *            The limit, 0 for no limit.
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Set the pool to run the search.
+	 * 
+	 * @param pool
+	 *            The pool, null to run in the current thread.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Find all decompositions of the cards.
+	 * 
+	 * @param signature
+	 *            The signature of the cards.
+	 * @return The decompositions, each a sorted array of PlayCodes, null if
+	 *         the limit is exceeded.
+	 */
+	public ArrayList<int[]> decompose(long signature) {
+		memo.clear();
+		count.set(0);
+		exceeded = false;
+		if (signature == CardsClassifier.INVALID) {
+			return new ArrayList<int[]>();
+		}
+		if (pool == null || signature == 0L) {
+			ArrayList<int[]> result = decompose(signature, -1);
+			return exceeded ? null : result;
+		}
+
+		// split by the play taking the lowest card.
+		int[] plays = collectPlays(signature, lowestLevel(signature));
+		Choice[] choices = new Choice[plays.length];
+		for (int i = 0; i < plays.length; i++) {
+			choices[i] = new Choice(signature, plays[i]);
+			pool.execute(choices[i]);
+		}
+		ArrayList<int[]> result = new ArrayList<int[]>();
+		for (int i = 0; i < choices.length; i++) {
+			result.addAll(choices[i].join());
+		}
+		// counted as the memo entry of the whole signature in one thread.
+		count(result);
+		return exceeded ? null : result;
+	}
+
+	/**
+	 * Generate the seeds of the cards: one seed for each decomposition.
+	 * 
+	 * @param cs
+	 *            The cards.
+	 * @return The seeds, each sorted, null if the limit is exceeded.
+	 */
+	public ArrayList<Seed> generateSeeds(Cards cs) {
+		ArrayList<int[]> decompositions = decompose(CardsClassifier
+				.signatureOf(cs));
+		if (decompositions == null) {
+			return null;
+		}
+		ArrayList<Seed> seeds = new ArrayList<Seed>(decompositions.size());
+		for (int i = 0; i < decompositions.size(); i++) {
+			seeds.add(toSeed(decompositions.get(i), cs));
+		}
+		return seeds;
+	}
+
+	/**
+	 * Get the number of entries in the memo of the last decomposition.
+	 * 
+	 * @return The number of entries.
+	 */
+	public int getMemoSize() {
+		return memo.size();
+	}
+
+	/**
+	 * Create the seed of a decomposition, picking the cards from the hand.
+	 * 
+	 * @param codes
+	 *            The PlayCodes of the decomposition.
+	 * @param cs
+	 *            The cards on hand.
+	 * @return The seed, sorted.
+	 */
+	public static Seed toSeed(int[] codes, Cards cs) {
+		return new CompactSeed(codes).toSeed(cs);
+	}
+
+	/**
+	 * Find the decompositions of the signature, where the plays containing
+	 * the lowest rank are not lower than the given play.
+	 * 
+	 * @param signature
+	 *            The signature of the remaining cards.
+	 * @param min
+	 *            The index in PlayIndex of the lowest play allowed, -1 for
+	 *            any play.
+	 * @return The decompositions.
+	 */
+	private ArrayList<int[]> decompose(long signature, int min) {
+		ArrayList<int[]> result = new ArrayList<int[]>();
+		if (signature == 0L) {
+			result.add(new int[0]);
+			return result;
+		}
+
+		Long key = Long.valueOf(signature
+				| ((long) (min + 1) << SIGNATURE_BITS));
+		ArrayList<int[]> known = memo.get(key);
+		if (known != null) {
+			return known;
+		}
+
+		int[] plays = collectPlays(signature, lowestLevel(signature));
+		for (int i = 0; i < plays.length && !exceeded; i++) {
+			if (PlayIndex.indexOf(plays[i]) >= min) {
+				decompose(signature, plays[i], result);
+			}
+		}
+
+		// another thread may have found the same decompositions.
+		known = memo.putIfAbsent(key, result);
+		if (known != null) {
+			return known;
+		}
+		count(result);
+		return result;
+	}
+
+	/**
+	 * Count the decompositions of a new memo entry, and check the limit. Each
+	 * entry is counted once, thus the limit is exceeded for the same hands
+	 * whatever the number of threads.
+	 * 
+	 * @param result
+	 *            The decompositions of the entry.
+	 */
+	private void count(ArrayList<int[]> result) {
+		if (limit > 0 && count.addAndGet(result.size()) > limit) {
+			exceeded = true;
+		}
+	}
+
+	/**
+	 * Find the decompositions of the signature, where the lowest card is taken
+	 * by the given play.
+	 * 
+	 * @param signature
+	 *            The signature of the remaining cards.
+	 * @param play
+	 *            The PlayCode of the play taking the lowest card.
+	 * @param result
+	 *            The list to hold the decompositions.
+	 */
+	private void decompose(long signature, int play, ArrayList<int[]> result) {
+		int level = lowestLevel(signature);
+		long rest = signature - PlayCode.signatureOf(play);
+		// the other cards of the lowest rank must be in a play not lower.
+		int next = (CardsClassifier.countOf(rest, level) > 0) ? PlayIndex
+				.indexOf(play) : -1;
+		ArrayList<int[]> tails = decompose(rest, next);
+		for (int k = 0; k < tails.size(); k++) {
+			result.add(insert(tails.get(k), play));
+		}
+	}
+
+	/**
+	 * Collect the plays of the cards containing the given level.
+	 * 
+	 * @param signature
+	 *            The signature of the cards.
+	 * @param level
+	 *            The level.
+	 * @return The PlayCodes of the plays.
+	 */
+	static int[] collectPlays(long signature, final int level) {
+		final int[] plays = new int[PlayIndex.size()];
+		final int[] count = new int[1];
+		LegalMoveGenerator.generate(signature, null, -1, 0,
+				new IMoveVisitor() {
+					@Override
+					public void visit(CardsType type, int value, int size,
+							long s) {
+						if (CardsClassifier.countOf(s, level) > 0) {
+							plays[count[0]++] = PlayCode.of(type, value,
+									size, s);
+						}
+					}
+				});
+		return Arrays.copyOf(plays, count[0]);
+	}
+
+	/**
+	 * Get the lowest level of the signature.
+	 * 
+	 * @param signature
+	 *            The signature, not 0.
+	 * @return The lowest level.
+	 */
+	static int lowestLevel(long signature) {
+		return Long.numberOfTrailingZeros(signature)
+				/ CardsClassifier.BITS_PER_LEVEL;
+	}
+
+	/**
+	 * Insert a code into a sorted array of codes.
+	 * 
+	 * @param codes
+	 *            The sorted codes.
+	 * @param code
+	 *            The code.
+	 * @return A new sorted array with the code inserted.
+	 */
+	private static int[] insert(int[] codes, int code) {
+		int[] result = new int[codes.length + 1];
+		int i = 0;
+		while (i < codes.length && codes[i] < code) {
+			result[i] = codes[i];
+			i++;
+		}
+		result[i] = code;
+		System.arraycopy(codes, i, result, i + 1, codes.length - i);
+		return result;
+	}
+
+	/**
+	 * A first choice of the search: the play taking the lowest card.
+	 */
+	private class Choice extends RecursiveTask<ArrayList<int[]>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private long signature;
+		private int play;
+
+		public Choice(long signature, int play) {
+			this.signature = signature;
+			this.play = play;
+		}
+
+		@Override
+		protected ArrayList<int[]> compute() {
+			ArrayList<int[]> result = new ArrayList<int[]>();
+			decompose(signature, play, result);
+			return result;
+		}
+	}
+}
@@ -1,8 +1,10 @@
 package ai.comp;
 
 import game.card.Cards;
+import game.card.PlayCode;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import ai.GameAI;
 
@@ -35,6 +37,12 @@ public class Recorder {
 	private ArrayList<Integer> roundHistory;
 	private int roundCounter;
 
+	/**
+	 * The play codes of the card history, see PlayCode.
+	 */
+	private int[] codeHistory;
+	private int codeCount;
+
 	/**
 	 * The constructor for Recorder.
 	 * 
@@ -55,6 +63,8 @@ public class Recorder {
 		playerHistory = new ArrayList<Integer>();
 		roundHistory = new ArrayList<Integer>();
 		roundCounter = 1;
+		codeHistory = new int[16];
+		codeCount = 0;
 	}
 
 	/**
@@ -69,6 +79,10 @@ public class Recorder {
 		cardHistory.add(cards);
 		playerHistory.add(playerID);
 		roundHistory.add(roundCounter);
+		if (codeCount == codeHistory.length) {
+			codeHistory = Arrays.copyOf(codeHistory, codeCount * 2);
+		}
+		codeHistory[codeCount++] = PlayCode.of(cards);
 		if (cards.isEmpty()) {
 			roundCounter++;
 		}
@@ -83,6 +97,27 @@ public class Recorder {
 		return cardHistory;
 	}
 
+	/**
+	 * Get the play codes of the CardHistory, see PlayCode.
+	 * 
+	 * @return a copy of the play codes, in the order of the history.
+	 */
+	public int[] getCodeHistory() {
+		return Arrays.copyOf(codeHistory, codeCount);
+	}
+
+	/**
+	 * Get the play code of the most recent cards displayed in the game.
+	 * 
+	 * @return the play code, PlayCode.PASS if there is no history.
+	 */
+	public int getLastCode() {
+		if (codeCount == 0) {
+			return PlayCode.PASS;
+		}
+		return codeHistory[codeCount - 1];
+	}
+
 	/**
 	 * Get the most recent cards displayed in the game.
 	 * 
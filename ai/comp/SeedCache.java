@@ -0,0 +1,207 @@
+package ai.comp;
+
+import game.card.Cards;
+import game.card.CardsClassifier;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ai.util.CompactSeed;
+import ai.util.Seed;
+
+/**
+ * The SeedCache keeps the seeds generated for the recent hands, such that the
+ * same hand does not need to be decomposed again.
+ * 
+ * The rules only depend on ranks, thus the cache is keyed by the rank-count
+ * signature of the hand (see CardsClassifier): hands differing only in suits
+ * share the same entry. Each entry keeps the seeds as CompactSeeds, and the
+ * seeds are created again by picking the cards from the actual hand.
+ * If the hand is exactly the one which the seeds were generated for, the seeds
+ * are returned as they are.
+ * 
+ * The cache is shared by all SeedGenerators, thus it is kept from game to
+ * game. The least recently used entry is dropped when the cache is full.
+ * 
+ * @author Riki
+ * 
+ */
+public class SeedCache {
+
+	/**
+	 * The default number of hands kept in the cache.
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	/**
+	 * The bits of the signature in a key. The engine is kept above them.
+	 */
+	private static final int ENGINE_SHIFT = 56;
+
+	private static int capacity = DEFAULT_CAPACITY;
+	private static long hits;
+	private static long misses;
+
+	/**
+	 * The entries, in the order of access.
+	 */
+	private static LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+			return size() > capacity;
+		}
+	};
+
+	/**
+	 * Get the seeds of the hand.
+	 * 
+	 * @param engine
+	 *            The engine of the SeedGenerator generating the seeds.
+	 * @param hand
+	 *            The cards on hand.
+	 * @return The seeds, or null if the hand is not in the cache.
+	 */
+	public static synchronized ArrayList<Seed> get(int engine, Cards hand) {
+		Entry entry = entries.get(keyOf(engine, hand));
+		if (entry == null || capacity == 0) {
+			misses++;
+			return null;
+		}
+		hits++;
+
+		if (entry.handKey == hand.getZobristKey()) {
+			return new ArrayList<Seed>(entry.seeds);
+		}
+		ArrayList<Seed> seeds = new ArrayList<Seed>(entry.compacts.length);
+		for (int i = 0; i < entry.compacts.length; i++) {
+			seeds.add(entry.compacts[i].toSeed(hand));
+		}
+		return seeds;
+	}
+
+	/**
+	 * Put the seeds of the hand into the cache.
+	 * 
+	 * @param engine
+	 *            The engine of the SeedGenerator generating the seeds.
+	 * @param hand
+	 *            The cards on hand.
+	 * @param seeds
+	 *            The seeds of the hand.
+	 */
+	public static synchronized void put(int engine, Cards hand,
+			ArrayList<Seed> seeds) {
+		if (capacity == 0
+				|| CardsClassifier.signatureOf(hand) == CardsClassifier.INVALID) {
+			return;
+		}
+		Entry entry = new Entry();
+		entry.handKey = hand.getZobristKey();
+		entry.seeds = new ArrayList<Seed>(seeds);
+		entry.compacts = new CompactSeed[seeds.size()];
+		for (int i = 0; i < seeds.size(); i++) {
+			entry.compacts[i] = CompactSeed.of(seeds.get(i));
+		}
+		entries.put(keyOf(engine, hand), entry);
+	}
+
+	/**
+	 * Remove all entries and reset the statistics.
+	 */
+	public static synchronized void clear() {
+		entries.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Get the number of hands found in the cache.
+	 * 
+	 * @return The number of hits.
+	 */
+	public static synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Get the number of hands not found in the cache.
+	 * 
+	 * @return The number of misses.
+	 */
+	public static synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Get the number of hands in the cache.
+	 * 
+	 * @return The number of hands.
+	 */
+	public static synchronized int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the maximum number of hands in the cache.
+	 * 
+	 * @return The capacity.
+	 */
+	public static synchronized int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Set the maximum number of hands in the cache. The least recently used
+	 * hands are dropped if there are too many.
+	 * 
+	 * @param c
+	 *            The capacity, 0 to disable the cache.
+	 */
+	public static synchronized void setCapacity(int c) {
+		if (c < 0) {
+			throw new IllegalArgumentException("Negative capacity: " + c);
+		}
+		capacity = c;
+		while (entries.size() > capacity) {
+			entries.remove(entries.keySet().iterator().next());
+		}
+	}
+
+	/**
+	 * Get the String representation of the statistics of the cache.
+	 * 
+	 * @return The statistics.
+	 */
+	public static synchronized String getStatistics() {
+		return "SeedCache: " + entries.size() + "/" + capacity + " hands, "
+				+ hits + " hits, " + misses + " misses";
+	}
+
+	/**
+	 * Get the key of the hand.
+	 * 
+	 * @param engine
+	 *            The engine.
+	 * @param hand
+	 *            The cards on hand.
+	 * @return The key.
+	 */
+	private static Long keyOf(int engine, Cards hand) {
+		return Long.valueOf(CardsClassifier.signatureOf(hand)
+				| ((long) engine << ENGINE_SHIFT));
+	}
+
+	/**
+	 * The seeds of a hand.
+	 */
+	private static class Entry {
+		private long handKey;
+		private ArrayList<Seed> seeds;
+		private CompactSeed[] compacts;
+	}
+}
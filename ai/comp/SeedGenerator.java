@@ -2,9 +2,14 @@ package ai.comp;
 
 import game.card.Cards;
 import game.card.CardsType;
+import game.card.PlayCode;
 import game.card.Rank;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
 
 import ai.GameAI;
 import ai.util.CardSet;
@@ -19,9 +24,66 @@ import ai.util.Seed;
  */
 public class SeedGenerator {
 
+	/**
+	 * The engine mutating the origin seed to populate new seeds.
+	 */
+	public static final int ENGINE_MUTATION = 0;
+
+	/**
+	 * The engine decomposing the hand by the HandDecomposer.
+	 */
+	public static final int ENGINE_DECOMPOSITION = 1;
+
+	/**
+	 * The engine decomposing the hand by the HandDecomposer, using all
+	 * processors. The seeds are the same as ENGINE_DECOMPOSITION.
+	 */
+	public static final int ENGINE_PARALLEL_DECOMPOSITION = 2;
+
+	/**
+	 * The engine taking the best seeds of the SeedStream, dropping the
+	 * dominated seeds. The seeds are bounded by the limits of the stream.
+	 */
+	public static final int ENGINE_BEST_FIRST = 3;
+
+	/**
+	 * The default maximum number of partial seeds in the queue of a stream.
+	 */
+	public static final int DEFAULT_MAX_QUEUE_SIZE = 4096;
+
+	/**
+	 * The default maximum number of seeds given by a stream.
+	 */
+	public static final int DEFAULT_MAX_SEEDS = 256;
+
+	/**
+	 * The default maximum number of seeds held by the mutation and the
+	 * decomposition of a hand. The hands of 16 cards tried hold fewer than
+	 * 8192.
+	 */
+	public static final int DEFAULT_MAX_GENERATED = 1 << 16;
+
+	/**
+	 * The pool shared by all SeedGenerators running in parallel.
+	 */
+	private static ForkJoinPool pool;
+
+	private int engine;
+	private HandDecomposer decomposer;
+	private boolean pruning;
+	private int maxQueueSize;
+	private int maxSeeds;
+	private int maxGenerated;
+	/**
+	 * Whether the seeds of the last hand are all its decompositions, as far
+	 * as the engine finds them.
+	 */
+	private boolean complete;
+
 	private CardSet originSet;
 	private Seed originSeed;
 	private ArrayList<Seed> seeds;
+	private HashSet<Seed> seedSet;
 	private Cards cards;
 	private GameAI gameAI;
 
@@ -33,6 +95,12 @@ public class SeedGenerator {
 	 */
 	public SeedGenerator(GameAI ai) {
 		this.gameAI = ai;
+		this.engine = ENGINE_MUTATION;
+		this.decomposer = new HandDecomposer();
+		this.pruning = true;
+		this.maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+		this.maxSeeds = DEFAULT_MAX_SEEDS;
+		setMaxGenerated(DEFAULT_MAX_GENERATED);
 		gameAI.report("SeedGenerator:->Initialization completed.");
 	}
 
@@ -44,6 +112,16 @@ public class SeedGenerator {
 	 * of CardsType, for each different type, do accordingly to transform and
 	 * reorganize the combinations of cards.
 	 * 
+	 * The seeds of recent hands are kept in the SeedCache, and are not
+	 * generated again. The seeds of ENGINE_BEST_FIRST are not cached, since
+	 * they depend on the limits of the stream.
+	 * 
+	 * The mutation and the decomposition hold at most maxGenerated seeds. The
+	 * mutation stops there, and gives the seeds found. The decomposition
+	 * gives up, and the seeds are taken from the stream as ENGINE_BEST_FIRST,
+	 * thus within the limits of the stream and pruned. These seeds are not
+	 * cached, and are not derived by deriveSeeds().
+	 * 
 	 * @param cs
 	 *            the cards source.
 	 * @return A list of seeds.
@@ -54,13 +132,290 @@ public class SeedGenerator {
 		// generate the origin seed from the cards.
 		// the origin seed is a set of cards, with all members of type Single.
 		generateOriginSeed();
+		complete = true;
 
-		// use the origin seed, mutate the seed to populate new generation.
-		populateSeeds();
+		if (engine == ENGINE_BEST_FIRST) {
+			return streamAll(cs);
+		}
 
+		ArrayList<Seed> cached = SeedCache.get(engine, cs);
+		if (cached != null) {
+			seeds = cached;
+			return seeds;
+		}
+
+		if (engine != ENGINE_MUTATION) {
+			ArrayList<Seed> decomposed = decomposer.generateSeeds(cs);
+			if (decomposed == null) {
+				// too many decompositions: the best ones of the stream.
+				return streamAll(cs);
+			}
+			seeds = decomposed;
+		} else {
+			// use the origin seed, mutate the seed to populate new generation.
+			populateSeeds();
+		}
+
+		if (complete) {
+			SeedCache.put(engine, cs, seeds);
+		}
 		return seeds;
 	}
 
+	/**
+	 * Take all seeds of the stream of the cards. The seeds are not complete.
+	 * 
+	 * @param cs
+	 *            the cards source.
+	 * @return A list of seeds.
+	 */
+	private ArrayList<Seed> streamAll(Cards cs) {
+		complete = false;
+		SeedStream stream = createStream(cs);
+		while (stream.hasNext()) {
+			seeds.add(stream.next());
+		}
+		return seeds;
+	}
+
+	/**
+	 * Give the seeds of the cards one by one, the seeds with fewer plays
+	 * first, such that the caller could stop after the best ones. The seeds
+	 * are found by decomposition whatever the engine is, and are not kept in
+	 * the SeedCache. The limits and the pruning of the SeedGenerator are
+	 * applied to the stream.
+	 * 
+	 * @param cs
+	 *            the cards source.
+	 * @return The stream of seeds.
+	 */
+	public SeedStream streamSeeds(Cards cs) {
+		init(cs);
+		generateOriginSeed();
+		return createStream(cs);
+	}
+
+	/**
+	 * Derive the seeds of the hand after some cards are played, from the seeds
+	 * of the hand before.
+	 * 
+	 * Each seed containing a play of the same type and value as the played
+	 * cards stays valid once that play is removed; the other seeds are
+	 * dropped. If the play of the seed is made of other suits, the cards of
+	 * the seed are picked again from the remaining hand. If there is no seed
+	 * before or no seed is left, the seeds are generated again.
+	 * 
+	 * The derived seeds are the same as the generated ones only if the seeds
+	 * before are all decompositions of the hand, see canDeriveSeeds(). For
+	 * the other engines, the seeds are generated again.
+	 * 
+	 * The derived seeds are in the order of the seeds before, not in the order
+	 * of the HandDecomposer, thus they are not kept in the SeedCache: the
+	 * cached seeds of a hand do not depend on the plays before.
+	 * 
+	 * @param previous
+	 *            The seeds of the hand before the cards are played.
+	 * @param played
+	 *            The played cards, empty for a pass.
+	 * @param hand
+	 *            The remaining hand: the hand before without the played cards.
+	 * @return The seeds of the remaining hand.
+	 */
+	public ArrayList<Seed> deriveSeeds(ArrayList<Seed> previous, Cards played,
+			Cards hand) {
+		if (previous.isEmpty() || !canDeriveSeeds()) {
+			return generateSeeds(hand);
+		}
+		init(hand);
+		generateOriginSeed();
+
+		ArrayList<Seed> cached = SeedCache.get(engine, hand);
+		if (cached != null) {
+			seeds = cached;
+			return seeds;
+		}
+
+		if (played.isEmpty()) {
+			seeds.addAll(previous);
+			return seeds;
+		}
+
+		int code = PlayCode.of(played);
+		Seed seed;
+		for (int i = 0; i < previous.size(); i++) {
+			seed = deriveSeed(previous.get(i), code, played, hand);
+			if (seed != null) {
+				updateNewSeed(seed, seeds, seedSet);
+			}
+		}
+
+		if (seeds.isEmpty()) {
+			return generateSeeds(hand);
+		}
+		return seeds;
+	}
+
+	/**
+	 * Test if the seeds of the engine could be derived by deriveSeeds(): only
+	 * the decomposition engines give all decompositions of the hand, which
+	 * stay complete once a play is removed. The mutation does not find all of
+	 * them, and ENGINE_BEST_FIRST drops some of them, as the decomposition
+	 * does when it gives up for the last hand.
+	 * 
+	 * @return True if the seeds could be derived.
+	 */
+	public boolean canDeriveSeeds() {
+		return complete
+				&& (engine == ENGINE_DECOMPOSITION
+						|| engine == ENGINE_PARALLEL_DECOMPOSITION);
+	}
+
+	/**
+	 * Derive a seed of the remaining hand from a seed of the hand before.
+	 * 
+	 * @param seed
+	 *            The seed before the cards are played.
+	 * @param code
+	 *            The PlayCode of the played cards.
+	 * @param played
+	 *            The played cards.
+	 * @param hand
+	 *            The remaining hand.
+	 * @return The derived seed, or null if the seed does not contain the play.
+	 */
+	private Seed deriveSeed(Seed seed, int code, Cards played, Cards hand) {
+		int[] codes = seed.getPlayCodes();
+		int index = -1;
+		for (int i = 0; i < codes.length; i++) {
+			if (codes[i] == code) {
+				index = i;
+				// the same cards: the other plays are kept as they are.
+				if (seed.get(i).getZobristKey() == played.getZobristKey()) {
+					break;
+				}
+			}
+		}
+		if (index < 0) {
+			return null;
+		}
+
+		Seed newSeed;
+		if (seed.get(index).getZobristKey() == played.getZobristKey()) {
+			newSeed = new Seed();
+			for (int i = 0; i < seed.size(); i++) {
+				if (i != index) {
+					newSeed.add(seed.get(i));
+				}
+			}
+			newSeed.sort();
+			return newSeed;
+		}
+
+		int[] rest = new int[codes.length - 1];
+		System.arraycopy(codes, 0, rest, 0, index);
+		System.arraycopy(codes, index + 1, rest, index, rest.length - index);
+		return HandDecomposer.toSeed(rest, hand);
+	}
+
+	/**
+	 * Get the engine used to generate seeds.
+	 * 
+	 * @return ENGINE_MUTATION, ENGINE_DECOMPOSITION,
+	 *         ENGINE_PARALLEL_DECOMPOSITION or ENGINE_BEST_FIRST.
+	 */
+	public int getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Set the engine used to generate seeds.
+	 * 
+	 * @param engine
+	 *            ENGINE_MUTATION, ENGINE_DECOMPOSITION,
+	 *            ENGINE_PARALLEL_DECOMPOSITION or ENGINE_BEST_FIRST.
+	 */
+	public void setEngine(int engine) {
+		if (engine != ENGINE_MUTATION && engine != ENGINE_DECOMPOSITION
+				&& engine != ENGINE_PARALLEL_DECOMPOSITION
+				&& engine != ENGINE_BEST_FIRST) {
+			throw new IllegalArgumentException("Unknown engine: " + engine);
+		}
+		this.engine = engine;
+		decomposer.setPool((engine == ENGINE_PARALLEL_DECOMPOSITION) ? getPool()
+				: null);
+	}
+
+	/**
+	 * Set if the streams drop the dominated seeds. It is on by default.
+	 * 
+	 * @param pruning
+	 *            True to drop the dominated seeds.
+	 */
+	public void setPruning(boolean pruning) {
+		this.pruning = pruning;
+	}
+
+	/**
+	 * Set the limits of the streams.
+	 * 
+	 * @param queueSize
+	 *            The maximum number of partial seeds in the queue, 0 for no
+	 *            limit.
+	 * @param seeds
+	 *            The maximum number of seeds given, 0 for no limit.
+	 */
+	public void setLimits(int queueSize, int seeds) {
+		if (queueSize < 0 || seeds < 0) {
+			throw new IllegalArgumentException("Negative limit: " + queueSize
+					+ ", " + seeds);
+		}
+		this.maxQueueSize = queueSize;
+		this.maxSeeds = seeds;
+	}
+
+	/**
+	 * Set the maximum number of seeds held by the mutation and the
+	 * decomposition of a hand, see generateSeeds().
+	 * 
+	 * @param max
+	 *            The maximum number of seeds, 0 for no limit.
+	 */
+	public void setMaxGenerated(int max) {
+		if (max < 0) {
+			throw new IllegalArgumentException("Negative limit: " + max);
+		}
+		this.maxGenerated = max;
+		decomposer.setLimit(max);
+	}
+
+	/**
+	 * Create a stream of the seeds of the cards, with the limits and the
+	 * pruning of the SeedGenerator.
+	 * 
+	 * @param cs
+	 *            The cards.
+	 * @return The stream.
+	 */
+	private SeedStream createStream(Cards cs) {
+		SeedStream stream = new SeedStream(cs);
+		stream.setPruning(pruning);
+		stream.setMaxQueueSize(maxQueueSize);
+		stream.setMaxCount(maxSeeds);
+		return stream;
+	}
+
+	/**
+	 * Get the pool shared by all SeedGenerators, created on the first use.
+	 * 
+	 * @return The pool.
+	 */
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
 	/**
 	 * Initialize the origin set.
 	 * 
@@ -71,6 +426,7 @@ public class SeedGenerator {
 		originSet = new CardSet(cs);
 		this.cards = cs;
 		seeds = new ArrayList<Seed>();
+		seedSet = new HashSet<Seed>();
 		originSeed = new Seed();
 	}
 
@@ -90,25 +446,35 @@ public class SeedGenerator {
 
 	/**
 	 * Populate the seeds from the originSeed.
+	 * 
+	 * The current seeds form a queue, and each distinct seed enters the queue
+	 * only once: the visited set keeps all seeds that have entered it. A seed
+	 * populated again would only give seeds that are already known.
 	 */
 	private void populateSeeds() {
-		ArrayList<Seed> currentSeeds = new ArrayList<Seed>();
+		ArrayDeque<Seed> currentSeeds = new ArrayDeque<Seed>();
+		HashSet<Seed> visited = new HashSet<Seed>();
 		// the seed shall be sorted for efficiency.
 		originSeed.sort();
 		// add the initial seed to the seeds.
-		currentSeeds.add(originSeed);
+		updateNewSeed(originSeed, currentSeeds, visited);
 
 		Seed currentSeed;
 		ArrayList<Seed> newSeeds;
 		while (!currentSeeds.isEmpty()) {
+			if (maxGenerated > 0 && visited.size() > maxGenerated) {
+				// the seeds found are kept, but are not cached.
+				complete = false;
+				break;
+			}
 			// remove the first seed from the current seeds.
-			currentSeed = currentSeeds.remove(0);
+			currentSeed = currentSeeds.poll();
 
 			// populate the current seed.
 			newSeeds = populateNewSeeds(currentSeed);
 
 			// update seeds.
-			updateSeeds(currentSeeds, newSeeds, currentSeed);
+			updateSeeds(currentSeeds, visited, newSeeds, currentSeed);
 
 		}
 	}
@@ -119,21 +485,23 @@ public class SeedGenerator {
 	 * 
 	 * @param currentSeeds
 	 *            The current seeds.
+	 * @param visited
+	 *            All seeds that have entered the current seeds.
 	 * @param newSeeds
 	 *            The newly generated seed.
 	 * @param cSeed
 	 *            The origin seed that generatest the new seeds.
 	 */
-	private void updateSeeds(ArrayList<Seed> currentSeeds,
-			ArrayList<Seed> newSeeds, Seed cSeed) {
+	private void updateSeeds(ArrayDeque<Seed> currentSeeds,
+			HashSet<Seed> visited, ArrayList<Seed> newSeeds, Seed cSeed) {
 		/*
 		 * keep the internal seeds.
 		 */
-		updateNewSeed(cSeed, seeds);
+		updateNewSeed(cSeed, seeds, seedSet);
 		// update the newSeeds to current seeds & to seeds.
 		for (int i = 0; i < newSeeds.size(); i++) {
-			updateNewSeed(newSeeds.get(i), currentSeeds);
-			updateNewSeed(newSeeds.get(i), seeds);
+			updateNewSeed(newSeeds.get(i), currentSeeds, visited);
+			updateNewSeed(newSeeds.get(i), seeds, seedSet);
 		}
 	}
 
@@ -146,6 +514,7 @@ public class SeedGenerator {
 	 */
 	private ArrayList<Seed> populateNewSeeds(Seed currentSeed) {
 		ArrayList<Seed> newSeeds = new ArrayList<Seed>();
+		HashSet<Seed> newSet = new HashSet<Seed>();
 
 		/*
 		 * Start generating new seeds from the current seed.
@@ -168,7 +537,7 @@ public class SeedGenerator {
 			promotedSeeds = promote(currentSeed, i);
 
 			for (int k = 0; k < promotedSeeds.size(); k++) {
-				updateNewSeed(promotedSeeds.get(k), newSeeds);
+				updateNewSeed(promotedSeeds.get(k), newSeeds, newSet);
 			}
 
 		}
@@ -177,23 +546,22 @@ public class SeedGenerator {
 	}
 
 	/**
-	 * Update the newly generated new seed to current seeds.
+	 * Update the newly generated new seed to current seeds. The set holds the
+	 * same seeds as the list, such that a duplicated seed is found by its
+	 * Zobrist key instead of comparing with each seed of the list.
 	 * 
 	 * @param newSeed
 	 *            The newly generated seed.
 	 * @param currentSeeds
 	 *            All current seeds.
+	 * @param currentSet
+	 *            The set of all current seeds.
 	 */
-	private void updateNewSeed(Seed newSeed, ArrayList<Seed> currentSeeds) {
-		Seed currentSeed;
-		for (int i = 0; i < currentSeeds.size(); i++) {
-			currentSeed = currentSeeds.get(i);
-			if (newSeed.equals(currentSeed)) {
-				return;
-			}
+	private void updateNewSeed(Seed newSeed, Collection<Seed> currentSeeds,
+			HashSet<Seed> currentSet) {
+		if (currentSet.add(newSeed)) {
+			currentSeeds.add(newSeed);
 		}
-
-		currentSeeds.add(newSeed);
 	}
 
 	/**
@@ -522,6 +890,7 @@ public class SeedGenerator {
 			str += " -----------seeds_" + i + " \t" + seeds.get(i) + "\n";
 		}
 		str += " ----------- seeds list finished. ";
+		str += "\n " + SeedCache.getStatistics();
 		str += "\n}";
 		return str;
 	}
@@ -0,0 +1,426 @@
+package ai.comp;
+
+import game.card.Cards;
+import game.card.CardsClassifier;
+import game.card.CardsType;
+import game.card.PlayCode;
+import game.card.PlayIndex;
+import game.card.Rank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import ai.util.Seed;
+
+/**
+ * The SeedStream gives the seeds of a hand one by one, the best seeds first,
+ * without generating all of them before.
+ * 
+ * The search is the same as the one of the HandDecomposer: the lowest card of
+ * the remaining cards is taken by each play in turn. The partial seeds are
+ * kept in a priority queue, ordered by the least number of plays that a
+ * complete seed could have: the plays taken so far, and the least number of
+ * plays of the remaining cards, which is computed exactly and memoized. Thus
+ * the seeds come out in ascending order of the number of plays; the seeds with
+ * the same number of plays are ordered by the number of single cards, and
+ * then by the order they were found.
+ * 
+ * A seed with fewer plays needs fewer turns to finish the hand, which is the
+ * cheap measure used to decide which seeds are evaluated first.
+ * 
+ * A seed is dominated by another one if it only splits the plays of the other
+ * one into more plays: it has no stronger play. If pruning is on, the
+ * dominated seeds are dropped; since a seed comes out after all seeds with
+ * fewer plays, it is checked against the seeds given before only.
+ * 
+ * The memory and the time are bounded by the maximum number of partial seeds
+ * in the queue and the maximum number of seeds given. If the queue is full,
+ * the worst quarter of it is dropped at once, thus the stream may miss some
+ * seeds of large hands.
+ * 
+ * @author Riki
+ * 
+ */
+public class SeedStream implements Iterator<Seed> {
+
+	/**
+	 * The order of the partial seeds.
+	 */
+	private static final Comparator<Node> ORDER = new Comparator<Node>() {
+		@Override
+		public int compare(Node n1, Node n2) {
+			if (n1.bound != n2.bound) {
+				return (n1.bound < n2.bound) ? -1 : 1;
+			}
+			if (n1.singles != n2.singles) {
+				return (n1.singles < n2.singles) ? -1 : 1;
+			}
+			return (n1.order < n2.order) ? -1 : (n1.order > n2.order) ? 1 : 0;
+		}
+	};
+
+	/**
+	 * The bits of the signature in a memo key. The index of the lowest play
+	 * allowed is kept above them.
+	 */
+	private static final int SIGNATURE_BITS = Rank.LEVELS
+			* CardsClassifier.BITS_PER_LEVEL;
+
+	private Cards hand;
+	private PriorityQueue<Node> queue;
+	private HashMap<Long, Integer> bounds;
+	private Node next;
+	private long order;
+	private int count;
+
+	private boolean pruning;
+	private int maxQueueSize;
+	private int maxCount;
+	private ArrayList<long[]> given;
+	private int pruned;
+	private int evicted;
+
+	/**
+	 * The constructor of the SeedStream.
+	 * 
+	 * @param cs
+	 *            The cards on hand.
+	 */
+	public SeedStream(Cards cs) {
+		this.hand = cs;
+		queue = new PriorityQueue<Node>(64, ORDER);
+		bounds = new HashMap<Long, Integer>();
+		given = new ArrayList<long[]>();
+
+		long signature = CardsClassifier.signatureOf(cs);
+		if (signature != CardsClassifier.INVALID) {
+			Node root = new Node();
+			root.codes = new int[0];
+			root.rest = signature;
+			root.min = -1;
+			root.bound = leastPlays(signature, -1);
+			queue.add(root);
+		}
+	}
+
+	/**
+	 * Test if there is another seed.
+	 * 
+	 * @return True if there is another seed.
+	 */
+	@Override
+	public boolean hasNext() {
+		if (maxCount > 0 && count >= maxCount) {
+			return false;
+		}
+		while (next == null && !queue.isEmpty()) {
+			Node node = queue.poll();
+			if (node.rest != 0L) {
+				expand(node);
+			} else if (pruning && isDominated(node.codes)) {
+				pruned++;
+			} else {
+				next = node;
+			}
+		}
+		return next != null;
+	}
+
+	/**
+	 * Get the next seed.
+	 * 
+	 * @return The next best seed.
+	 */
+	@Override
+	public Seed next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Seed seed = HandDecomposer.toSeed(next.codes, hand);
+		if (pruning) {
+			given.add(signaturesOf(next.codes));
+		}
+		next = null;
+		count++;
+		return seed;
+	}
+
+	/**
+	 * The seeds can not be removed.
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Set if the dominated seeds are dropped. It is off by default.
+	 * 
+	 * @param pruning
+	 *            True to drop the dominated seeds.
+	 */
+	public void setPruning(boolean pruning) {
+		this.pruning = pruning;
+	}
+
+	/**
+	 * Set the maximum number of partial seeds in the queue.
+	 * 
+	 * @param size
+	 *            The maximum number, 0 for no limit.
+	 */
+	public void setMaxQueueSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Negative size: " + size);
+		}
+		this.maxQueueSize = size;
+	}
+
+	/**
+	 * Set the maximum number of seeds given.
+	 * 
+	 * @param count
+	 *            The maximum number, 0 for no limit.
+	 */
+	public void setMaxCount(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Negative count: " + count);
+		}
+		this.maxCount = count;
+	}
+
+	/**
+	 * Get the number of dominated seeds dropped so far.
+	 * 
+	 * @return The number of seeds.
+	 */
+	public int getPruned() {
+		return pruned;
+	}
+
+	/**
+	 * Get the number of partial seeds dropped from the full queue so far.
+	 * 
+	 * @return The number of partial seeds.
+	 */
+	public int getEvicted() {
+		return evicted;
+	}
+
+	/**
+	 * Get the number of seeds given so far.
+	 * 
+	 * @return The number of seeds.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the number of partial seeds waiting in the queue.
+	 * 
+	 * @return The number of partial seeds.
+	 */
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	/**
+	 * Expand a partial seed: each play taking the lowest card of the remaining
+	 * cards gives a new partial seed.
+	 * 
+	 * @param node
+	 *            The partial seed.
+	 */
+	private void expand(Node node) {
+		int level = HandDecomposer.lowestLevel(node.rest);
+		int[] plays = HandDecomposer.collectPlays(node.rest, level);
+		for (int i = 0; i < plays.length; i++) {
+			int index = PlayIndex.indexOf(plays[i]);
+			if (index < node.min) {
+				continue;
+			}
+
+			long rest = node.rest - PlayCode.signatureOf(plays[i]);
+			// the other cards of the lowest rank must be in a play not lower.
+			int min = (CardsClassifier.countOf(rest, level) > 0) ? index : -1;
+			int least = leastPlays(rest, min);
+			if (least == Integer.MAX_VALUE) {
+				// the remaining cards can not be decomposed.
+				continue;
+			}
+
+			Node child = new Node();
+			child.rest = rest;
+			child.min = min;
+			child.codes = new int[node.codes.length + 1];
+			System.arraycopy(node.codes, 0, child.codes, 0, node.codes.length);
+			child.codes[node.codes.length] = plays[i];
+			child.bound = child.codes.length + least;
+			child.singles = node.singles
+					+ ((PlayCode.getType(plays[i]) == CardsType.SINGLE) ? 1 : 0);
+			child.order = order++;
+			queue.add(child);
+		}
+
+		if (maxQueueSize > 0 && queue.size() > maxQueueSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * Drop the worst quarter of the partial seeds in the queue.
+	 */
+	private void evict() {
+		Node[] nodes = queue.toArray(new Node[queue.size()]);
+		Arrays.sort(nodes, ORDER);
+		int keep = maxQueueSize - maxQueueSize / 4;
+		queue.clear();
+		for (int i = 0; i < keep; i++) {
+			queue.add(nodes[i]);
+		}
+		evicted += nodes.length - keep;
+	}
+
+	/**
+	 * Test if a seed is dominated by a seed given before: the seed has more
+	 * plays, and each play of the other seed is made of plays of the seed.
+	 * 
+	 * @param codes
+	 *            The PlayCodes of the seed.
+	 * @return True if the seed is dominated.
+	 */
+	private boolean isDominated(int[] codes) {
+		long[] parts = signaturesOf(codes);
+		for (int i = 0; i < given.size(); i++) {
+			long[] wholes = given.get(i);
+			if (wholes.length < parts.length
+					&& assign(parts, 0, wholes.clone())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Assign the plays to the plays of another seed, such that each play of
+	 * the other seed is filled exactly.
+	 * 
+	 * @param parts
+	 *            The signatures of the plays.
+	 * @param index
+	 *            The index of the next play to be assigned.
+	 * @param wholes
+	 *            The signatures of the cards still to be filled in each play
+	 *            of the other seed.
+	 * @return True if all plays are assigned.
+	 */
+	private static boolean assign(long[] parts, int index, long[] wholes) {
+		if (index == parts.length) {
+			return true;
+		}
+		for (int i = 0; i < wholes.length; i++) {
+			if (contains(wholes[i], parts[index])) {
+				wholes[i] -= parts[index];
+				if (assign(parts, index + 1, wholes)) {
+					return true;
+				}
+				wholes[i] += parts[index];
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Test if the cards of a signature contain the cards of another one.
+	 * 
+	 * @param whole
+	 *            The signature of the cards.
+	 * @param part
+	 *            The signature of the other cards.
+	 * @return True if each rank has at least as many cards in the whole.
+	 */
+	private static boolean contains(long whole, long part) {
+		for (int level = 0; level < Rank.LEVELS; level++) {
+			if (CardsClassifier.countOf(whole, level) < CardsClassifier
+					.countOf(part, level)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the signatures of the plays.
+	 * 
+	 * @param codes
+	 *            The PlayCodes of the plays.
+	 * @return The signatures.
+	 */
+	private static long[] signaturesOf(int[] codes) {
+		long[] signatures = new long[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			signatures[i] = PlayCode.signatureOf(codes[i]);
+		}
+		return signatures;
+	}
+
+	/**
+	 * Get the least number of plays of the cards.
+	 * 
+	 * @param signature
+	 *            The signature of the cards.
+	 * @param min
+	 *            The index in PlayIndex of the lowest play allowed to take
+	 *            the lowest card, -1 for any play.
+	 * @return The least number of plays, Integer.MAX_VALUE if the cards can
+	 *         not be decomposed.
+	 */
+	private int leastPlays(long signature, int min) {
+		if (signature == 0L) {
+			return 0;
+		}
+		Long key = Long.valueOf(signature
+				| ((long) (min + 1) << SIGNATURE_BITS));
+		Integer known = bounds.get(key);
+		if (known != null) {
+			return known;
+		}
+
+		int level = HandDecomposer.lowestLevel(signature);
+		int[] plays = HandDecomposer.collectPlays(signature, level);
+		int least = Integer.MAX_VALUE;
+		for (int i = 0; i < plays.length; i++) {
+			int index = PlayIndex.indexOf(plays[i]);
+			if (index < min) {
+				continue;
+			}
+			long rest = signature - PlayCode.signatureOf(plays[i]);
+			int next = (CardsClassifier.countOf(rest, level) > 0) ? index : -1;
+			int n = leastPlays(rest, next);
+			if (n != Integer.MAX_VALUE) {
+				least = Math.min(least, n + 1);
+			}
+		}
+
+		bounds.put(key, least);
+		return least;
+	}
+
+	/**
+	 * A partial seed.
+	 */
+	private static class Node {
+		private int[] codes;
+		private long rest;
+		private int min;
+		private int bound;
+		private int singles;
+		private long order;
+	}
+}
@@ -17,6 +17,8 @@ public class CardSet {
 	// the cards to be summarized.
 	private Cards cards;
 	// summarized rank
+	private RankHistogram histogram;
+	// summarized rank, created on the first use.
 	private ProbSet<Rank> rankSet;
 	// the cards in list.
 	private List<Cards> cardsList;
@@ -37,13 +39,7 @@ public class CardSet {
 	 * Initialize the CardSet.
 	 */
 	private void init() {
-		List<Rank> ranks = new ArrayList<Rank>();
-
-		for (int i = 0; i < cards.getSize(); i++) {
-			ranks.add(cards.getCard(i).getRank());
-		}
-
-		rankSet = new ProbSet<Rank>(ranks);
+		histogram = new RankHistogram(cards);
 
 		cardsList = new ArrayList<Cards>();
 
@@ -73,12 +69,28 @@ public class CardSet {
 		return cardsList;
 	}
 
+	/**
+	 * Get the histogram of the ranks.
+	 * 
+	 * @return The histogram of the ranks.
+	 */
+	public RankHistogram getRankHistogram() {
+		return histogram;
+	}
+
 	/**
 	 * Get the set for Rank
 	 * 
 	 * @return The set for rank.
 	 */
 	public ProbSet<Rank> getRankSet() {
+		if (rankSet == null) {
+			List<Rank> ranks = new ArrayList<Rank>();
+			for (int i = 0; i < cards.getSize(); i++) {
+				ranks.add(cards.getCard(i).getRank());
+			}
+			rankSet = new ProbSet<Rank>(ranks);
+		}
 		return rankSet;
 	}
 
@@ -97,7 +109,7 @@ public class CardSet {
 	public String toString() {
 		String str = "";
 
-		str += " rank Set: " + rankSet + "\n";
+		str += " rank Set: " + histogram + "\n";
 
 		for (int i = 0; i < cardsList.size(); i++) {
 			str += "\t cardsList_" + i + " " + cardsList.get(i) + "\n";
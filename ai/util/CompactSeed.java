@@ -0,0 +1,160 @@
+package ai.util;
+
+import game.card.CardFactory;
+import game.card.Cards;
+import game.card.PlayCode;
+import game.card.Zobrist;
+
+import java.util.Arrays;
+
+/**
+ * The CompactSeed is an immutable seed held as the sorted PlayCodes of its
+ * plays (see PlayCode), with its Zobrist key computed once. A seed of 16 cards
+ * takes a few dozen bytes, instead of the Cards and Card objects of a Seed.
+ * 
+ * The key is the same as the one of the equal Seed, and two CompactSeeds are
+ * equal if they have the same codes. A CompactSeed is converted back to a Seed
+ * by picking the cards of each play from a hand.
+ * 
+ * @author Riki
+ * 
+ */
+public final class CompactSeed {
+
+	private final int[] codes;
+	private final long key;
+
+	/**
+	 * The constructor of the CompactSeed.
+	 * 
+	 * @param codes
+	 *            The PlayCodes of the plays, in any order. The array is copied.
+	 */
+	public CompactSeed(int[] codes) {
+		this.codes = codes.clone();
+		Arrays.sort(this.codes);
+		long k = 0;
+		for (int i = 0; i < this.codes.length; i++) {
+			k += Zobrist.keyOf(PlayCode.getType(this.codes[i]),
+					PlayCode.getValue(this.codes[i]));
+		}
+		this.key = k;
+	}
+
+	/**
+	 * Create the CompactSeed of a seed.
+	 * 
+	 * @param seed
+	 *            The seed.
+	 * @return The CompactSeed.
+	 */
+	public static CompactSeed of(Seed seed) {
+		return new CompactSeed(seed.getPlayCodes());
+	}
+
+	/**
+	 * Create the seed, picking the cards of the plays from the hand.
+	 * 
+	 * @param hand
+	 *            The cards on hand, containing the cards of all plays.
+	 * @return The seed, sorted.
+	 */
+	public Seed toSeed(Cards hand) {
+		Cards rest = (Cards) hand.clone();
+		rest.sort();
+		Seed seed = new Seed();
+		for (int i = 0; i < codes.length; i++) {
+			Cards play = PlayCode.toCards(codes[i], rest);
+			for (int k = 0; k < play.getSize(); k++) {
+				rest.removeCard(play.getCard(k));
+			}
+			seed.add(play);
+		}
+		seed.sort();
+		return seed;
+	}
+
+	/**
+	 * Create the seed, picking the cards of the plays from a deck.
+	 * 
+	 * @return The seed, sorted.
+	 */
+	public Seed toSeed() {
+		return toSeed(CardFactory.createDeck());
+	}
+
+	/**
+	 * Get the number of plays.
+	 * 
+	 * @return The number of plays.
+	 */
+	public int size() {
+		return codes.length;
+	}
+
+	/**
+	 * Get the i-th PlayCode, in ascending order.
+	 * 
+	 * @param i
+	 *            The index.
+	 * @return The PlayCode.
+	 */
+	public int getCode(int i) {
+		return codes[i];
+	}
+
+	/**
+	 * Get the PlayCodes of the plays.
+	 * 
+	 * @return A copy of the codes, sorted.
+	 */
+	public int[] getCodes() {
+		return codes.clone();
+	}
+
+	/**
+	 * Get the number of cards of the seed.
+	 * 
+	 * @return The number of cards.
+	 */
+	public int getCardCount() {
+		int count = 0;
+		for (int i = 0; i < codes.length; i++) {
+			count += PlayCode.getSize(codes[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Get the Zobrist key of the seed, the same as the one of the Seed.
+	 * 
+	 * @return The key.
+	 */
+	public long getZobristKey() {
+		return key;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof CompactSeed)) {
+			return false;
+		}
+		CompactSeed s = (CompactSeed) o;
+		return key == s.key && Arrays.equals(codes, s.codes);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (key ^ (key >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		String str = "CompactSeed{";
+		for (int i = 0; i < codes.length; i++) {
+			str += (i == 0 ? " " : ", ") + PlayCode.toString(codes[i]);
+		}
+		str += " }";
+		return str;
+	}
+}
@@ -1,16 +1,95 @@
 package ai.util;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import game.card.CardMask;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 import ai.GameAI;
 
 public class ProbabilityCalculator {
 
+	/**
+	 * The largest number of elements in the table of combination numbers: the
+	 * size of the deck.
+	 */
+	public static final int MAX_N = CardMask.DECK_SIZE;
+
+	/**
+	 * The combination numbers: BINOMIAL[n][r] is to select r from n. All of
+	 * them are below 2^53, thus exact as doubles.
+	 */
+	private static final double[][] BINOMIAL = new double[MAX_N + 1][];
+
+	static {
+		// the Pascal triangle.
+		for (int n = 0; n <= MAX_N; n++) {
+			BINOMIAL[n] = new double[n + 1];
+			BINOMIAL[n][0] = 1;
+			BINOMIAL[n][n] = 1;
+			for (int r = 1; r < n; r++) {
+				BINOMIAL[n][r] = BINOMIAL[n - 1][r - 1] + BINOMIAL[n - 1][r];
+			}
+		}
+	}
+
+	/**
+	 * The bits of the number of elements of each value in a memo key.
+	 */
+	private static final int BITS_PER_COUNT = 3;
+
+	/**
+	 * The bits of the numbers of elements of S in a memo key. The length of B
+	 * is kept above them.
+	 */
+	private static final int COUNTS_BITS = 45;
+
+	/**
+	 * The flag of the used slots of the memo.
+	 */
+	private static final long USED = 1L << 63;
+
+	/**
+	 * The initial number of slots of the memo.
+	 */
+	private static final int MEMO_CAPACITY = 256;
+
 	private GameAI gameAI;
 
+	/**
+	 * The memo of calc(int[], int, int[]) of the current thread, such that the
+	 * calculator could be used by several threads at once. The memo of a
+	 * thread is freed with the thread.
+	 */
+	private ThreadLocal<Memo> memo = new ThreadLocal<Memo>() {
+		@Override
+		protected Memo initialValue() {
+			return new Memo();
+		}
+	};
+
+	/**
+	 * The numbers of probabilities found in the memos and computed, shared by
+	 * all threads. The adders keep a cell per contending thread, thus the
+	 * threads of a pool do not wait for each other in calc().
+	 */
+	private final LongAdder memoHits = new LongAdder();
+	private final LongAdder memoMisses = new LongAdder();
+
+	/**
+	 * The number of probabilities in the memos of the current generation,
+	 * shared by all threads.
+	 */
+	private final LongAdder memoEntries = new LongAdder();
+
+	/**
+	 * The number of times the memos are cleared by reset(). A memo of an
+	 * older generation is cleared before its next use.
+	 */
+	private volatile int generation;
+
 	public ProbabilityCalculator(GameAI ai) {
 		this.gameAI = ai;
 		gameAI.report("ProbabilityCalculator:->Initialization completed.");
@@ -66,7 +145,7 @@ public class ProbabilityCalculator {
 		}
 
 		// all combinations of B.
-		BigInteger cTotal = getCombinationNum(setA.length(), lengthOfB);
+		double cTotal = choose(setA.length(), lengthOfB);
 
 		int countSInA = 0;
 		for (int i = 0; i < setS.size(); i++) {
@@ -77,34 +156,295 @@ public class ProbabilityCalculator {
 		// __lengthOf(B)- lengthOf(S)
 		// C0
 		// __lengthOf(A)- getNumIn(A,[s1,s2,,sj])
-		BigInteger c0 = getCombinationNum(setA.length() - countSInA, lengthOfB
+		double c0 = choose(setA.length() - countSInA, lengthOfB
 				- setS.length());
 
 		// __pi
 		// ci
 		// __getNumIn(A,si)
-		BigInteger[] cs = new BigInteger[setS.size()];
+		double[] cs = new double[setS.size()];
 		for (int i = 0; i < cs.length; i++) {
-			cs[i] = getCombinationNum(setA.getElementCount(setS.getElement(i)),
+			cs[i] = choose(setA.getElementCount(setS.getElement(i)),
 					setS.getElementCount(setS.getElement(i)));
 		}
 
 		// C_1  C_j  C_0
-		BigInteger sCombinations = c0;
+		double sCombinations = c0;
 		for (int i = 0; i < cs.length; i++) {
-			sCombinations = sCombinations.multiply(cs[i]);
+			sCombinations *= cs[i];
 		}
 		// all possible combination w.r.t S
-		BigDecimal up = new BigDecimal(sCombinations);
+		double up = sCombinations;
 		// all combinations of B
-		BigDecimal down = new BigDecimal(cTotal);
+		double down = cTotal;
 
 		//P(p1s1,, pjsj)
-		double result = up.doubleValue() / down.doubleValue();
+		double result = up / down;
 
 		return result;
 	}
 
+	/**
+	 * The same calculation as calc(List, int, List), on the numbers of
+	 * elements of each value. Nothing is allocated.
+	 * 
+	 * The results are memoized for the set A: within a turn, the same
+	 * questions are asked again by the analysis of each seed. The memo is
+	 * cleared when the set A is changed, or by reset(). Each thread has its
+	 * own memo.
+	 * 
+	 * @param countsA
+	 *            The number of elements of each value in the set A.
+	 * @param lengthOfB
+	 *            The length of set B.
+	 * @param countsS
+	 *            The number of elements of each value in the set S, indexed
+	 *            as countsA.
+	 * @return The probability that S is a subset of B.
+	 */
+	public double calc(int[] countsA, int lengthOfB, int[] countsS) {
+		long key = keyOf(lengthOfB, countsS);
+		if (key == 0L) {
+			// the question can not be memoized.
+			return compute(countsA, lengthOfB, countsS);
+		}
+		Memo m = memo.get();
+		if (m.generation != generation || !Arrays.equals(m.countsA, countsA)) {
+			// the entries of an older generation are dropped by reset().
+			if (m.generation == generation) {
+				memoEntries.add(-m.size);
+			}
+			m.clear(generation, countsA);
+		}
+
+		int slot = m.find(key);
+		if (m.keys[slot] == key) {
+			memoHits.increment();
+			return m.values[slot];
+		}
+
+		memoMisses.increment();
+		double result = compute(countsA, lengthOfB, countsS);
+		m.put(slot, key, result);
+		memoEntries.increment();
+		return result;
+	}
+
+	/**
+	 * The same calculation as calc(int[], int, int[]), on RankHistograms.
+	 * 
+	 * @param setA
+	 *            The set A.
+	 * @param lengthOfB
+	 *            The length of set B.
+	 * @param setS
+	 *            The set S.
+	 * @return The probability that S is a subset of B.
+	 */
+	public double calc(RankHistogram setA, int lengthOfB, RankHistogram setS) {
+		return calc(setA.counts, lengthOfB, setS.counts);
+	}
+
+	/**
+	 * Clear the memos of all threads, for example when the environment is
+	 * changed. It should not be called while other threads are calculating.
+	 */
+	public void reset() {
+		generation++;
+		memoEntries.reset();
+	}
+
+	/**
+	 * Get the number of probabilities found in the memos.
+	 * 
+	 * @return The number of hits.
+	 */
+	public long getMemoHits() {
+		return memoHits.sum();
+	}
+
+	/**
+	 * Get the number of probabilities computed and put into the memos.
+	 * 
+	 * @return The number of misses.
+	 */
+	public long getMemoMisses() {
+		return memoMisses.sum();
+	}
+
+	/**
+	 * Get the rate of the probabilities found in the memos.
+	 * 
+	 * @return The hit rate, 0 if nothing is asked.
+	 */
+	public double getMemoHitRate() {
+		long hits = getMemoHits();
+		long total = hits + getMemoMisses();
+		return (total == 0) ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * Get the number of probabilities in the memos of all threads, since the
+	 * last reset().
+	 * 
+	 * @return The number of entries.
+	 */
+	public int getMemoSize() {
+		return memoEntries.intValue();
+	}
+
+	/**
+	 * Compute the probability, see calc(int[], int, int[]).
+	 * 
+	 * @param countsA
+	 *            The number of elements of each value in the set A.
+	 * @param lengthOfB
+	 *            The length of set B.
+	 * @param countsS
+	 *            The number of elements of each value in the set S.
+	 * @return The probability that S is a subset of B.
+	 */
+	private double compute(int[] countsA, int lengthOfB, int[] countsS) {
+		int lengthOfA = 0;
+		int lengthOfS = 0;
+		int countSInA = 0;
+		double sCombinations = 1;
+		for (int i = 0; i < countsA.length; i++) {
+			lengthOfA += countsA[i];
+			if (countsS[i] > 0) {
+				if (countsS[i] > countsA[i]) {
+					return 0;
+				}
+				lengthOfS += countsS[i];
+				countSInA += countsA[i];
+				sCombinations *= choose(countsA[i], countsS[i]);
+			}
+		}
+		if (lengthOfS > lengthOfB) {
+			return 0;
+		}
+
+		sCombinations *= choose(lengthOfA - countSInA, lengthOfB - lengthOfS);
+		return sCombinations / choose(lengthOfA, lengthOfB);
+	}
+
+	/**
+	 * Get the memo key of the question.
+	 * 
+	 * @param lengthOfB
+	 *            The length of set B.
+	 * @param countsS
+	 *            The number of elements of each value in the set S.
+	 * @return The key, or 0 if the question does not fit in a key.
+	 */
+	private static long keyOf(int lengthOfB, int[] countsS) {
+		if (countsS.length * BITS_PER_COUNT > COUNTS_BITS || lengthOfB < 0
+				|| lengthOfB > MAX_N) {
+			return 0L;
+		}
+		long key = (long) lengthOfB << COUNTS_BITS;
+		for (int i = 0; i < countsS.length; i++) {
+			if (countsS[i] < 0 || countsS[i] >= (1 << BITS_PER_COUNT)) {
+				return 0L;
+			}
+			key |= (long) countsS[i] << (i * BITS_PER_COUNT);
+		}
+		return key | USED;
+	}
+
+	/**
+	 * Get the first slot of the key in a memo.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @param mask
+	 *            The number of slots minus 1.
+	 * @return The slot.
+	 */
+	private static int slotOf(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 * The memo of a thread for the set A: an open addressing table of the keys
+	 * of S and the length of B, and the probabilities.
+	 */
+	private static class Memo {
+		private int[] countsA = new int[0];
+		private int generation;
+		private long[] keys = new long[MEMO_CAPACITY];
+		private double[] values = new double[MEMO_CAPACITY];
+		private int size;
+
+		/**
+		 * Remove all probabilities, and tag the memo.
+		 * 
+		 * @param g
+		 *            The generation.
+		 * @param a
+		 *            The number of elements of each value in the set A.
+		 */
+		private void clear(int g, int[] a) {
+			Arrays.fill(keys, 0L);
+			size = 0;
+			generation = g;
+			countsA = a.clone();
+		}
+
+		/**
+		 * Find the slot of the key: the slot holding the key, or the empty
+		 * slot to put it.
+		 * 
+		 * @param key
+		 *            The key.
+		 * @return The slot.
+		 */
+		private int find(long key) {
+			int mask = keys.length - 1;
+			int slot = slotOf(key, mask);
+			while (keys[slot] != 0L && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		/**
+		 * Put the probability into the empty slot found for the key.
+		 * 
+		 * @param slot
+		 *            The slot.
+		 * @param key
+		 *            The key.
+		 * @param value
+		 *            The probability.
+		 */
+		private void put(int slot, long key, double value) {
+			keys[slot] = key;
+			values[slot] = value;
+			if (++size * 2 > keys.length) {
+				grow();
+			}
+		}
+
+		/**
+		 * Double the number of slots.
+		 */
+		private void grow() {
+			long[] oldKeys = keys;
+			double[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new double[oldValues.length * 2];
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0L) {
+					int slot = find(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+	}
+
 	/**
 	 * Test if the setS is valid.
 	 * 
@@ -144,35 +484,20 @@ public class ProbabilityCalculator {
 	 *            Number to be selected.
 	 * @return The result of: select cr from cn.
 	 */
-	private BigInteger getCombinationNum(int cn, int cr) {
-		if (cn < cr) {
-			return BigInteger.ZERO;
+	public static double choose(int cn, int cr) {
+		if (cr < 0 || cn < cr) {
+			return 0;
+		}
+		if (cn <= MAX_N) {
+			return BINOMIAL[cn][cr];
 		}
 
-		BigInteger factCn = getFactorial(cn);
-		BigInteger factCr = getFactorial(cr);
-		BigInteger factDiff = getFactorial(cn - cr);
-
-		// total = factCn/(factCr*factDiff)
-		BigInteger total = factCn.divide(factCr.multiply(factDiff));
-
-		return total;
-	}
-
-	/**
-	 * Calculate the factorial of n.
-	 * 
-	 * @param n
-	 *            the number
-	 * @return Factorial of n.
-	 */
-	private BigInteger getFactorial(int n) {
-		BigInteger fact = BigInteger.ONE;
-		while (n > 1) {
-			fact = fact.multiply(new BigInteger(Integer.toString(n)));
-			n--;
+		// out of the table.
+		double total = 1;
+		for (int i = 1; i <= cr; i++) {
+			total = total * (cn - cr + i) / i;
 		}
-		return fact;
+		return total;
 	}
 
 	/**
@@ -184,7 +509,7 @@ public class ProbabilityCalculator {
 		ProbabilityCalculator prob = new ProbabilityCalculator(null);
 
 		for (int i = 0; i < 17; i++) {
-			System.out.println(i + "\t" + prob.getCombinationNum(16, i));
+			System.out.println(i + "\t" + (long) choose(16, i));
 		}
 
 		int[] as = { 1, 1, 1, 2, 2, 2, 2, 3, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
@@ -0,0 +1,218 @@
+package ai.util;
+
+import game.card.ICards;
+import game.card.Rank;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The RankHistogram counts the elements of each rank, for the probability
+ * calculator. It is the same as a ProbSet of Ranks, but the numbers are held
+ * in an array indexed by the ordinal of the rank, thus counting, adding and
+ * subtracting are done in constant time.
+ * 
+ * @author Riki
+ * 
+ */
+public class RankHistogram {
+
+	/**
+	 * The number of ranks.
+	 */
+	public static final int SIZE = Rank.values().length;
+
+	/**
+	 * The number of elements of each rank, indexed by the ordinal of the rank.
+	 */
+	final int[] counts;
+
+	/**
+	 * The total number of elements.
+	 */
+	private int length;
+
+	/**
+	 * The constructor for an empty RankHistogram.
+	 */
+	public RankHistogram() {
+		counts = new int[SIZE];
+	}
+
+	/**
+	 * The constructor for the RankHistogram of some cards.
+	 * 
+	 * @param cs
+	 *            The cards to be summarized.
+	 */
+	public RankHistogram(ICards cs) {
+		this();
+		for (int i = 0; i < cs.getSize(); i++) {
+			add(cs.getCard(i).getRank());
+		}
+	}
+
+	/**
+	 * The constructor for the RankHistogram of some ranks.
+	 * 
+	 * @param ranks
+	 *            The ranks to be summarized.
+	 */
+	public RankHistogram(List<Rank> ranks) {
+		this();
+		for (int i = 0; i < ranks.size(); i++) {
+			add(ranks.get(i));
+		}
+	}
+
+	/**
+	 * The copy constructor.
+	 * 
+	 * @param h
+	 *            The RankHistogram to be copied.
+	 */
+	public RankHistogram(RankHistogram h) {
+		counts = h.counts.clone();
+		length = h.length;
+	}
+
+	/**
+	 * Get the number of elements of the rank.
+	 * 
+	 * @param r
+	 *            The rank.
+	 * @return The number of elements.
+	 */
+	public int count(Rank r) {
+		return counts[r.ordinal()];
+	}
+
+	/**
+	 * Add an element of the rank.
+	 * 
+	 * @param r
+	 *            The rank.
+	 */
+	public void add(Rank r) {
+		counts[r.ordinal()]++;
+		length++;
+	}
+
+	/**
+	 * Add some elements of the rank.
+	 * 
+	 * @param r
+	 *            The rank.
+	 * @param n
+	 *            The number of elements.
+	 */
+	public void add(Rank r, int n) {
+		counts[r.ordinal()] += n;
+		length += n;
+	}
+
+	/**
+	 * Add all elements of another RankHistogram.
+	 * 
+	 * @param h
+	 *            The other RankHistogram.
+	 */
+	public void add(RankHistogram h) {
+		for (int i = 0; i < SIZE; i++) {
+			counts[i] += h.counts[i];
+		}
+		length += h.length;
+	}
+
+	/**
+	 * Subtract some elements of the rank.
+	 * 
+	 * @param r
+	 *            The rank.
+	 * @param n
+	 *            The number of elements, not more than the number of elements
+	 *            of the rank.
+	 */
+	public void subtract(Rank r, int n) {
+		if (counts[r.ordinal()] < n) {
+			throw new IllegalArgumentException("Not enough " + r + ": "
+					+ counts[r.ordinal()] + " < " + n);
+		}
+		counts[r.ordinal()] -= n;
+		length -= n;
+	}
+
+	/**
+	 * Subtract all elements of another RankHistogram.
+	 * 
+	 * @param h
+	 *            The other RankHistogram, contained in this one.
+	 */
+	public void subtract(RankHistogram h) {
+		for (int i = 0; i < SIZE; i++) {
+			if (counts[i] < h.counts[i]) {
+				throw new IllegalArgumentException("Not enough "
+						+ Rank.values()[i] + ": " + counts[i] + " < "
+						+ h.counts[i]);
+			}
+		}
+		for (int i = 0; i < SIZE; i++) {
+			counts[i] -= h.counts[i];
+		}
+		length -= h.length;
+	}
+
+	/**
+	 * Remove all elements.
+	 */
+	public void clear() {
+		Arrays.fill(counts, 0);
+		length = 0;
+	}
+
+	/**
+	 * Get the total number of elements.
+	 * 
+	 * @return The length of the RankHistogram.
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Get the numbers of elements of all ranks.
+	 * 
+	 * @return A copy of the numbers, indexed by the ordinal of the rank.
+	 */
+	public int[] toArray() {
+		return counts.clone();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof RankHistogram)) {
+			return false;
+		}
+		return Arrays.equals(counts, ((RankHistogram) o).counts);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(counts);
+	}
+
+	/**
+	 * The string representation of the RankHistogram, as the one of the
+	 * ProbSet.
+	 */
+	public String toString() {
+		String str = "{";
+		for (int i = 0; i < SIZE; i++) {
+			if (counts[i] > 0) {
+				str += " [" + Rank.values()[i] + "," + counts[i] + "] ";
+			}
+		}
+		str += "}";
+		return str;
+	}
+}
@@ -3,8 +3,10 @@ package ai.util;
 import game.card.Card;
 import game.card.CardFactory;
 import game.card.Cards;
+import game.card.PlayCode;
 import game.card.Rank;
 import game.card.Suit;
+import game.card.Zobrist;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -12,6 +14,10 @@ import java.util.Collections;
 /**
  * The seed for some cards. The cards are organized to form the cards.
  * 
+ * Each seed keeps a Zobrist key of its combinations (see Zobrist), which does
+ * not depend on the order of the combinations. Equal seeds have equal keys, so
+ * seeds could be held in hash sets.
+ * 
  * @author Riki
  * 
  */
@@ -40,6 +46,11 @@ public class Seed {
 	 */
 	private ArrayList<Cards> seedCards;
 
+	/**
+	 * The Zobrist key of the combinations of the seed.
+	 */
+	private long key;
+
 	/**
 	 * The constructor of the cards.
 	 */
@@ -99,6 +110,29 @@ public class Seed {
 			cards.addCard(cs.getCard(i));
 		}
 		seedCards.add(cs);
+		key += Zobrist.keyOf(cs.getCardsType(), cs.getCardsValue());
+	}
+
+	/**
+	 * Get the play codes of the cards of the seed, see PlayCode.
+	 * 
+	 * @return the play codes, in the order of the seed.
+	 */
+	public int[] getPlayCodes() {
+		int[] codes = new int[seedCards.size()];
+		for (int i = 0; i < codes.length; i++) {
+			codes[i] = PlayCode.of(seedCards.get(i));
+		}
+		return codes;
+	}
+
+	/**
+	 * Get the Zobrist key of the seed.
+	 * 
+	 * @return The key of the seed.
+	 */
+	public long getZobristKey() {
+		return key;
 	}
 
 	/**
@@ -128,6 +162,7 @@ public class Seed {
 		newSeed.description = new String(this.description);
 		newSeed.autoSummary = new String(this.autoSummary);
 		newSeed.seedCards = (ArrayList<Cards>) this.seedCards.clone();
+		newSeed.key = this.key;
 		return newSeed;
 	}
 
@@ -165,7 +200,7 @@ public class Seed {
 			Seed s = (Seed) o;
 			Cards cs1, cs2;
 
-			if (this.size() != s.size()) {
+			if (this.key != s.key || this.size() != s.size()) {
 				return false;
 			}
 
@@ -182,6 +217,11 @@ public class Seed {
 		return true;
 	}
 
+	@Override
+	public int hashCode() {
+		return (int) (key ^ (key >>> 32));
+	}
+
 	/**
 	 * for test purpose.
 	 */
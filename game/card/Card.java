@@ -5,6 +5,10 @@ package game.card;
  * 
  * The ID of a card is unique in a deck.
  * 
+ * A card is immutable, and there is only one instance for each card: the
+ * instances are created and shared by the CardFactory. Thus two cards are equal
+ * if and only if they are the same instance.
+ * 
  * 
  * @author Riki
  * 
@@ -32,26 +36,36 @@ public class Card {
 	 * The ID of the card is automatically generated using the value of rank and
 	 * suit.
 	 * 
+	 * Only the CardFactory creates cards, please use
+	 * CardFactory.createCard(Suit, Rank) to get a card.
+	 * 
 	 * @param suit
 	 *            The suit.
 	 * @param rank
 	 *            The rank.
 	 */
-	public Card(Suit suit, Rank rank) {
+	Card(Suit suit, Rank rank) {
 		this.suit = suit;
 		this.rank = rank;
 		this.ID = rank.getValue() + suit.getValue();
 	}
 
+	/**
+	 * The card is immutable, the clone is the card itself.
+	 */
 	@Override
 	public Object clone() {
-		return new Card(suit, rank);
+		return this;
 	}
 
 	@Override
 	public boolean equals(Object o) {
-		Card c = (Card) o;
-		return suit.equals(c.getSuit()) && rank.equals(c.getRank());
+		return this == o;
+	}
+
+	@Override
+	public int hashCode() {
+		return ID;
 	}
 
 	/**
@@ -7,12 +7,60 @@ package game.card;
  * 
  * 2. Create a deck of cards for the specified game.
  * 
+ * The cards are created only once, when this class is loaded. The factory
+ * always hands out the same instance for the same suit and rank.
+ * 
  * 
  * @author Riki
  * 
  */
 public class CardFactory {
 
+	/**
+	 * The shared card instances, indexed by the ID of the cards.
+	 */
+	private static final Card[] CARDS;
+
+	static {
+		int maxID = 0;
+		for (Rank r : Rank.values()) {
+			for (Suit s : Suit.values()) {
+				maxID = Math.max(maxID, r.getValue() + s.getValue());
+			}
+		}
+
+		CARDS = new Card[maxID + 1];
+		for (Rank r : Rank.values()) {
+			for (Suit s : Suit.values()) {
+				Card card = new Card(s, r);
+				CARDS[card.getID()] = card;
+			}
+		}
+	}
+
+	/**
+	 * Get the maximum ID of the cards.
+	 * 
+	 * @return The maximum ID.
+	 */
+	public static int getMaxID() {
+		return CARDS.length - 1;
+	}
+
+	/**
+	 * Get the Card by its ID.
+	 * 
+	 * @param id
+	 *            The ID of the card.
+	 * @return The card, or null if no card has the ID.
+	 */
+	public static Card getCard(int id) {
+		if (id < 0 || id >= CARDS.length) {
+			return null;
+		}
+		return CARDS[id];
+	}
+
 	/**
 	 * Create a Card by specified suit and rank.
 	 * 
@@ -23,7 +71,7 @@ public class CardFactory {
 	 * @return A card.
 	 */
 	public static Card createCard(Suit suit, Rank rank) {
-		return new Card(suit, rank);
+		return CARDS[rank.getValue() + suit.getValue()];
 	}
 
 	/**
@@ -34,7 +82,7 @@ public class CardFactory {
 	 * @return A card.
 	 */
 	public static Card createCard(Rank rank) {
-		return new Card(Suit.SPADES, rank);
+		return createCard(Suit.SPADES, rank);
 	}
 
 	/**
@@ -55,10 +103,10 @@ public class CardFactory {
 				if (Rank.ACE == r && Suit.DIAMONDS == s) {
 					continue;
 				} else if (Rank.DEUCE == r) {
-					cards.addCard(new Card(Suit.SPADES, Rank.DEUCE));
+					cards.addCard(createCard(Suit.SPADES, Rank.DEUCE));
 					break;
 				}
-				cards.addCard(new Card(s, r));
+				cards.addCard(createCard(s, r));
 			}
 		}
 		cards.sort();
@@ -0,0 +1,548 @@
+package game.card;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements the ICards interface by holding the cards in a single
+ * long value: a bitmask.
+ * 
+ * The deck created by CardFactory.createDeck() contains exactly 48 cards, thus
+ * each card of the deck owns one bit of the mask. The bits are ordered by the
+ * ID of the cards, so the cards are always kept in ascending order, the same
+ * order as the one produced by sort().
+ * 
+ * Adding, removing and testing a card, as well as the union and the difference
+ * of two CardMasks are single bit operations.
+ * 
+ * The CardMask could be converted from and to a Cards without losing any card.
+ * 
+ * @author Riki
+ * 
+ */
+public class CardMask implements ICards {
+
+	/**
+	 * The number of cards in a deck. One bit for each card.
+	 */
+	public static final int DECK_SIZE = 48;
+
+	/**
+	 * The cards of the deck, indexed by their bits.
+	 */
+	private static final Card[] CARDS = new Card[DECK_SIZE];
+
+	/**
+	 * The bits of the cards, indexed by the ID of the cards. -1 if the ID does
+	 * not belong to a card of the deck.
+	 */
+	private static final int[] BITS;
+
+	static {
+		Cards deck = CardFactory.createDeck();
+		int maxID = 0;
+		for (int i = 0; i < deck.getSize(); i++) {
+			CARDS[i] = deck.getCard(i);
+			maxID = Math.max(maxID, CARDS[i].getID());
+		}
+
+		BITS = new int[maxID + 1];
+		for (int i = 0; i < BITS.length; i++) {
+			BITS[i] = -1;
+		}
+		for (int i = 0; i < CARDS.length; i++) {
+			BITS[CARDS[i].getID()] = i;
+		}
+	}
+
+	/**
+	 * The mask of the cards.
+	 */
+	private long mask;
+
+	/**
+	 * The CardsType of current cards.
+	 */
+	private CardsType type;
+
+	/**
+	 * The value of the current type.
+	 */
+	private int value;
+
+	/**
+	 * The constructor for an empty CardMask.
+	 */
+	public CardMask() {
+		this(0L);
+	}
+
+	/**
+	 * The constructor for the CardMask with the given mask.
+	 * 
+	 * @param mask
+	 *            The mask of the cards.
+	 */
+	public CardMask(long mask) {
+		this.mask = mask;
+		value = -1;
+	}
+
+	/**
+	 * The constructor for the CardMask. All cards of the given cards will be
+	 * copied into the mask.
+	 * 
+	 * @param cs
+	 *            The cards to be copied.
+	 */
+	public CardMask(ICards cs) {
+		this(maskOf(cs));
+	}
+
+	/**
+	 * Get the bit index of the card.
+	 * 
+	 * @param card
+	 *            The card.
+	 * @return The index of the bit which represents the card.
+	 */
+	public static int indexOf(Card card) {
+		int id = card.getID();
+		if (id < 0 || id >= BITS.length || BITS[id] < 0) {
+			throw new IllegalArgumentException("Card not in deck: " + card);
+		}
+		return BITS[id];
+	}
+
+	/**
+	 * Get the mask of a single card.
+	 * 
+	 * @param card
+	 *            The card.
+	 * @return The mask with only the bit of the card set.
+	 */
+	public static long maskOf(Card card) {
+		return 1L << indexOf(card);
+	}
+
+	/**
+	 * Get the mask of the cards.
+	 * 
+	 * @param cs
+	 *            The cards.
+	 * @return The mask with the bits of all cards set.
+	 */
+	public static long maskOf(ICards cs) {
+		if (cs instanceof CardMask) {
+			return ((CardMask) cs).mask;
+		}
+
+		long m = 0L;
+		for (int i = 0; i < cs.getSize(); i++) {
+			m |= maskOf(cs.getCard(i));
+		}
+		return m;
+	}
+
+	/**
+	 * Get the card represented by the bit index.
+	 * 
+	 * @param index
+	 *            The bit index.
+	 * @return The card.
+	 */
+	public static Card cardAt(int index) {
+		return CARDS[index];
+	}
+
+	/**
+	 * Get the mask of the cards.
+	 * 
+	 * @return The mask.
+	 */
+	public long getMask() {
+		return mask;
+	}
+
+	/**
+	 * Get the rank-count signature of the cards. See CardsClassifier.
+	 * 
+	 * @return The signature of the cards.
+	 */
+	public long getSignature() {
+		long signature = 0L;
+		long m = mask;
+		while (m != 0) {
+			signature += CardsClassifier.signatureOf(CARDS[Long
+					.numberOfTrailingZeros(m)].getRank());
+			m &= m - 1;
+		}
+		return signature;
+	}
+
+	/**
+	 * Get the Zobrist key of the cards on hand. See Zobrist.
+	 * 
+	 * @return The key of the cards.
+	 */
+	public long getZobristKey() {
+		return Zobrist.keyOf(this, Zobrist.HAND);
+	}
+
+	/**
+	 * Add a card to current CardMask.
+	 * 
+	 * @param card
+	 *            The card to be added.
+	 * @return The added card.
+	 */
+	@Override
+	public Card addCard(Card card) {
+		fireCardsPropertyChanges();
+		mask |= maskOf(card);
+		return card;
+	}
+
+	/**
+	 * Add all cards of the given cards to the current CardMask.
+	 * 
+	 * @param cs
+	 *            The cards to be added.
+	 */
+	public void addAll(ICards cs) {
+		fireCardsPropertyChanges();
+		mask |= maskOf(cs);
+	}
+
+	/**
+	 * Remove all cards of the given cards from the current CardMask.
+	 * 
+	 * @param cs
+	 *            The cards to be removed.
+	 */
+	public void removeAll(ICards cs) {
+		fireCardsPropertyChanges();
+		mask &= ~maskOf(cs);
+	}
+
+	/**
+	 * Test if the card is contained.
+	 * 
+	 * @param card
+	 *            The card.
+	 * @return True if the card is contained, otherwise false.
+	 */
+	public boolean contains(Card card) {
+		return (mask & maskOf(card)) != 0;
+	}
+
+	/**
+	 * Test if all the cards are contained.
+	 * 
+	 * @param cs
+	 *            The cards.
+	 * @return True if all the cards are contained, otherwise false.
+	 */
+	public boolean containsAll(ICards cs) {
+		long m = maskOf(cs);
+		return (mask & m) == m;
+	}
+
+	/**
+	 * Create the union of this and the given cards.
+	 * 
+	 * @param cs
+	 *            The cards.
+	 * @return A new CardMask containing cards of both.
+	 */
+	public CardMask union(ICards cs) {
+		return new CardMask(mask | maskOf(cs));
+	}
+
+	/**
+	 * Create the difference of this and the given cards.
+	 * 
+	 * @param cs
+	 *            The cards.
+	 * @return A new CardMask containing cards of this, but not the given
+	 *         cards.
+	 */
+	public CardMask difference(ICards cs) {
+		return new CardMask(mask & ~maskOf(cs));
+	}
+
+	/**
+	 * Create the intersection of this and the given cards.
+	 * 
+	 * @param cs
+	 *            The cards.
+	 * @return A new CardMask containing cards that are in both.
+	 */
+	public CardMask intersection(ICards cs) {
+		return new CardMask(mask & maskOf(cs));
+	}
+
+	@Override
+	public Object clone() {
+		CardMask cm = new CardMask(mask);
+		cm.setCardsType(this.type);
+		cm.setCardsValue(this.value);
+		return cm;
+	}
+
+	/**
+	 * Convert the CardMask into Cards. The cards are in ascending order.
+	 * 
+	 * @return The Cards containing all cards of the mask.
+	 */
+	public Cards toCards() {
+		Cards cs = new Cards();
+		long m = mask;
+		while (m != 0) {
+			cs.addCard(CARDS[Long.numberOfTrailingZeros(m)]);
+			m &= m - 1;
+		}
+		cs.setCardsType(this.type);
+		cs.setCardsValue(this.value);
+		return cs;
+	}
+
+	/**
+	 * When the property of the cards changed: for example, add / remove a card
+	 * from the current CardMask.
+	 */
+	private void fireCardsPropertyChanges() {
+		type = null;
+		value = -1;
+	}
+
+	/**
+	 * Get the specified card. The cards are in ascending order.
+	 * 
+	 * @param index
+	 *            The index of a card.
+	 * @return A card.
+	 */
+	@Override
+	public Card getCard(int index) {
+		if (index < 0 || index >= getSize()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ getSize());
+		}
+
+		long m = mask;
+		for (int i = 0; i < index; i++) {
+			m &= m - 1;
+		}
+		return CARDS[Long.numberOfTrailingZeros(m)];
+	}
+
+	/**
+	 * Get the list of cards. The list is a copy: changes on the list will not
+	 * affect the CardMask.
+	 * 
+	 * @return A list of cards.
+	 */
+	@Override
+	public List<Card> getCards() {
+		List<Card> list = new ArrayList<Card>(getSize());
+		long m = mask;
+		while (m != 0) {
+			list.add(CARDS[Long.numberOfTrailingZeros(m)]);
+			m &= m - 1;
+		}
+		return list;
+	}
+
+	/**
+	 * Get the CardsType of the current cards.
+	 * 
+	 * @return The CardsType of the current cards.
+	 */
+	@Override
+	public CardsType getCardsType() {
+		if (type == null) {
+			initCardsType();
+		}
+		return type;
+	}
+
+	/**
+	 * Get the int value representing the current cards.
+	 * 
+	 * @return the int value representing the current cards.
+	 */
+	@Override
+	public int getCardsValue() {
+		if (type == null) {
+			initCardsType();
+		}
+		return value;
+	}
+
+	/**
+	 * Get the number of cards in this CardMask.
+	 * 
+	 * @return The number of cards.
+	 */
+	@Override
+	public int getSize() {
+		return Long.bitCount(mask);
+	}
+
+	/**
+	 * Initialize the CardsType for the current cards.
+	 */
+	private void initCardsType() {
+		CardsClassifier.classify(this);
+	}
+
+	/**
+	 * Compare the cards according to the rules specified in the game rule
+	 * specifications.
+	 * 
+	 * @param cards
+	 *            The cards to be compared with.
+	 * @return True if this cards is greater, false otherwise.
+	 */
+	@Override
+	public boolean isGreaterThan(ICards cards) {
+		return Cards.isGreaterThan(this, cards);
+	}
+
+	/**
+	 * Test if the cards is empty.
+	 * 
+	 * @return True if the cards is empty, otherwise false.
+	 */
+	@Override
+	public boolean isEmpty() {
+		return mask == 0L;
+	}
+
+	/**
+	 * Remove the specified Card from current CardMask.
+	 * 
+	 * @param card
+	 *            The card.
+	 * @return The removed card, null if the card is not contained.
+	 */
+	@Override
+	public Card removeCard(Card card) {
+		fireCardsPropertyChanges();
+		long m = maskOf(card);
+		if ((mask & m) == 0) {
+			return null;
+		}
+		mask &= ~m;
+		return card;
+	}
+
+	/**
+	 * Remove the specified Card from current CardMask.
+	 * 
+	 * @param index
+	 *            The index of the card.
+	 * @return The removed card.
+	 */
+	@Override
+	public Card removeCard(int index) {
+		Card card = getCard(index);
+		return removeCard(card);
+	}
+
+	/**
+	 * Remove all cards from the current CardMask.
+	 */
+	@Override
+	public void remvoeAll() {
+		fireCardsPropertyChanges();
+		mask = 0L;
+	}
+
+	/**
+	 * Set the current CardsType of the current cards.
+	 * 
+	 * @param type
+	 *            A CardsType.
+	 */
+	@Override
+	public void setCardsType(CardsType type) {
+		this.type = type;
+	}
+
+	/**
+	 * Set the int value representing the current cards.
+	 * 
+	 * @param value
+	 *            The int value representing the current cards.
+	 */
+	@Override
+	public void setCardsValue(int value) {
+		this.value = value;
+	}
+
+	/**
+	 * The CardMask has no order: the cards are always in ascending order. This
+	 * method does nothing.
+	 */
+	@Override
+	public void shuffle() {
+	}
+
+	/**
+	 * The CardMask is always sorted. This method does nothing.
+	 */
+	@Override
+	public void sort() {
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o instanceof CardMask) {
+			return mask == ((CardMask) o).mask;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (mask ^ (mask >>> 32));
+	}
+
+	/**
+	 * Get the simplified String representation for the current cards.
+	 * 
+	 * @return The String representation for the the current cards.
+	 */
+	@Override
+	public String toCardsString() {
+		String str = "[";
+
+		long m = mask;
+		while (m != 0) {
+			str += CARDS[Long.numberOfTrailingZeros(m)].toString() + " ";
+			m &= m - 1;
+		}
+
+		str += "]";
+
+		return str;
+	}
+
+	/**
+	 * The complete version to represent the CardMask in String.
+	 * 
+	 * @return A String representation of the CardMask.
+	 */
+	@Override
+	public String toString() {
+		String str = "CardMask " + getSize() + " ";
+
+		str += toCardsString();
+
+		str += " Type: " + getCardsType() + " Value: " + getCardsValue();
+
+		return str;
+	}
+}
@@ -1,28 +1,65 @@
 package game.card;
 
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Vector;
+import java.util.Random;
 
 /**
  * This class implements the ICards interface, providing the functions to manage
  * cards information, such as the type, value, comparison function, string
  * representation, and ect.
  * 
+ * The cards are held by their IDs in an int array. As long as the cards are not
+ * shuffled, the array is kept in ascending order on each insertion, which is
+ * the same order as sort() gives, so sort() costs nothing.
+ * 
+ * The number of cards of each rank is kept up to date on each insertion and
+ * removal in a signature (see CardsClassifier), thus the type and the value of
+ * the Cards are read from the table of the CardsClassifier without sorting or
+ * scanning the cards again.
+ * 
+ * The Zobrist key of the cards (see Zobrist) is also updated with one XOR on
+ * each insertion and removal.
+ * 
  * @author Riki
  * 
  */
 public class Cards implements ICards {
 	/**
-	 * The shared CardComparator to sort cards by rank & suit in ascending
-	 * order.
+	 * The initial capacity of the array.
+	 */
+	private static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * The shared random generator to shuffle the cards.
 	 */
-	private static CardComparator comparator = new CardComparator();
+	private static Random random = new Random();
 
 	/**
-	 * The list to hold cards.
+	 * The array to hold the IDs of the cards.
 	 */
-	private List<Card> cards;
+	private int[] ids;
+
+	/**
+	 * The number of cards.
+	 */
+	private int size;
+
+	/**
+	 * True if the IDs are in ascending order.
+	 */
+	private boolean sorted;
+
+	/**
+	 * The rank-count signature of the cards.
+	 */
+	private long signature;
+
+	/**
+	 * The Zobrist key of the cards.
+	 */
+	private long key;
 
 	/**
 	 * The CardsType of current Cards.
@@ -40,22 +77,24 @@ public class Cards implements ICards {
 	 * combination of cards.
 	 */
 	public Cards() {
-		cards = new Vector<Card>();
+		ids = new int[INITIAL_CAPACITY];
+		size = 0;
+		sorted = true;
 		value = -1;
 	}
 
 	/**
 	 * The constructor for Cards. Basically, this constructor will takes another
-	 * Cards, and copy the information. Notice that the copy is not ensured to
-	 * be safe. To get the safe copy of this Card, please use the method public
-	 * void clone().
+	 * Cards, and copy the information: the cards, the type and the value.
 	 * 
 	 * @param cs
 	 *            The Cards to be copied.
 	 */
 	public Cards(ICards cs) {
-		super();
-		cards = cs.getCards();
+		this();
+		for (int i = 0; i < cs.getSize(); i++) {
+			addCard(cs.getCard(i));
+		}
 		this.type = cs.getCardsType();
 		this.value = cs.getCardsValue();
 	}
@@ -73,21 +112,83 @@ public class Cards implements ICards {
 	@Override
 	public Card addCard(Card card) {
 		fireCardsPropertyChanges();
-		cards.add(card);
+		addSignature(card.getRank());
+		key ^= Zobrist.keyOf(card, Zobrist.HAND);
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+
+		int id = card.getID();
+		if (!sorted) {
+			ids[size++] = id;
+			return card;
+		}
+
+		// insert after all the cards not greater than the card.
+		int index = size;
+		while (index > 0 && ids[index - 1] > id) {
+			ids[index] = ids[index - 1];
+			index--;
+		}
+		ids[index] = id;
+		size++;
 		return card;
 	}
 
+	/**
+	 * Create a copy of the Cards. The cards are immutable, thus the copy
+	 * shares the card instances.
+	 */
 	@Override
 	public Object clone() {
 		Cards cs = new Cards();
-		for (int i = 0; i < cards.size(); i++) {
-			cs.addCard((Card) cards.get(i).clone());
-		}
+		cs.ids = Arrays.copyOf(ids, Math.max(size, INITIAL_CAPACITY));
+		cs.size = size;
+		cs.sorted = sorted;
+		cs.signature = signature;
+		cs.key = key;
 		cs.setCardsType(this.type);
 		cs.setCardsValue(this.value);
 		return cs;
 	}
 
+	/**
+	 * Count a card of the rank into the signature.
+	 * 
+	 * @param rank
+	 *            The rank of the added card.
+	 */
+	private void addSignature(Rank rank) {
+		if (signature == CardsClassifier.INVALID) {
+			return;
+		}
+		int count = CardsClassifier.countOf(signature, rank.getLevel());
+		if (count == CardsClassifier.MAX_COUNT) {
+			// too many cards of a rank to be counted.
+			signature = CardsClassifier.INVALID;
+			return;
+		}
+		signature += CardsClassifier.signatureOf(rank);
+	}
+
+	/**
+	 * Get the rank-count signature of the cards. See CardsClassifier.
+	 * 
+	 * @return The signature of the cards.
+	 */
+	public long getSignature() {
+		return signature;
+	}
+
+	/**
+	 * Get the Zobrist key of the cards. See Zobrist.
+	 * 
+	 * @return The key of the cards.
+	 */
+	public long getZobristKey() {
+		return key;
+	}
+
 	/**
 	 * When the property of the Cards changed: for example, add / remove a card
 	 * from the current Cards.
@@ -106,17 +207,32 @@ public class Cards implements ICards {
 	 */
 	@Override
 	public Card getCard(int index) {
-		return cards.get(index);
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+					+ size);
+		}
+		return CardFactory.getCard(ids[index]);
 	}
 
 	/**
-	 * Get the list of cards.
+	 * Get the list of cards. The list is a read-only view of the Cards.
 	 * 
 	 * @return A list of cards.
 	 */
 	@Override
 	public List<Card> getCards() {
-		return cards;
+		return new AbstractList<Card>() {
+
+			@Override
+			public Card get(int index) {
+				return getCard(index);
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
 	}
 
 	/**
@@ -152,15 +268,18 @@ public class Cards implements ICards {
 	 */
 	@Override
 	public int getSize() {
-		return cards.size();
+		return size;
 	}
 
 	/**
-	 * Initialize the CardsType for the current Cards.
+	 * Initialize the CardsType for the current Cards. The cards are sorted for
+	 * display and for the callers that read the cards by index.
 	 */
 	private void initCardsType() {
 		sort();
-		CardsType.validateCards(this);
+		int entry = CardsClassifier.lookup(signature);
+		type = CardsClassifier.getType(entry);
+		value = CardsClassifier.getValue(entry);
 	}
 
 	/**
@@ -170,7 +289,7 @@ public class Cards implements ICards {
 	 */
 	@Override
 	public boolean isEmpty() {
-		return cards.isEmpty();
+		return size == 0;
 	}
 
 	/**
@@ -183,8 +302,22 @@ public class Cards implements ICards {
 	 */
 	@Override
 	public boolean isGreaterThan(ICards cards) {
-		CardsType t1 = this.getCardsType();
-		CardsType t2 = cards.getCardsType();
+		return isGreaterThan(this, cards);
+	}
+
+	/**
+	 * Compare two cards according to the rules specified in the game rule
+	 * specifications. This is shared by all implementations of ICards.
+	 * 
+	 * @param cards1
+	 *            The cards to be compared.
+	 * @param cards2
+	 *            The cards to be compared with.
+	 * @return True if {@code cards1} is greater, false otherwise.
+	 */
+	static boolean isGreaterThan(ICards cards1, ICards cards2) {
+		CardsType t1 = cards1.getCardsType();
+		CardsType t2 = cards2.getCardsType();
 
 		/*
 		 * any of the cards contains invalid Cardstype, return false.
@@ -199,7 +332,7 @@ public class Cards implements ICards {
 
 		// special case considering bombs.
 		if (t1 == CardsType.BOMB) {
-			return (t2 == CardsType.BOMB) ? (this.getCardsValue() > cards
+			return (t2 == CardsType.BOMB) ? (cards1.getCardsValue() > cards2
 					.getCardsValue()) : true;
 		}
 
@@ -212,14 +345,14 @@ public class Cards implements ICards {
 		case FLUSH:
 		case MULTIPAIR:
 		case MULTITRIPLE:
-			if (this.getSize() != cards.getSize()) {
+			if (cards1.getSize() != cards2.getSize()) {
 				return false;
 			}
 		case PAIR:
 		case SINGLE:
 		case TRIPLE:
 		case TRIPLE_WITH_PAIR:
-			return this.getCardsValue() > cards.getCardsValue();
+			return cards1.getCardsValue() > cards2.getCardsValue();
 		}
 
 		System.err.println("unexpected error!");
@@ -236,7 +369,39 @@ public class Cards implements ICards {
 	@Override
 	public Card removeCard(Card card) {
 		fireCardsPropertyChanges();
-		return cards.remove(card) ? card : null;
+		int index = indexOf(card.getID());
+		if (index < 0) {
+			return null;
+		}
+		removeCard(index);
+		return card;
+	}
+
+	/**
+	 * Get the index of the first card with the given ID.
+	 * 
+	 * @param id
+	 *            The ID of the card.
+	 * @return The index of the card, -1 if not found.
+	 */
+	private int indexOf(int id) {
+		if (sorted) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index < 0) {
+				return -1;
+			}
+			while (index > 0 && ids[index - 1] == id) {
+				index--;
+			}
+			return index;
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (ids[i] == id) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	/**
@@ -249,7 +414,20 @@ public class Cards implements ICards {
 	@Override
 	public Card removeCard(int index) {
 		fireCardsPropertyChanges();
-		return cards.remove(index);
+		Card card = getCard(index);
+		System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+		size--;
+		key ^= Zobrist.keyOf(card, Zobrist.HAND);
+		if (signature == CardsClassifier.INVALID) {
+			// count again: the cards may be counted now.
+			signature = 0L;
+			for (int i = 0; i < size; i++) {
+				addSignature(getCard(i).getRank());
+			}
+		} else {
+			signature -= CardsClassifier.signatureOf(card.getRank());
+		}
+		return card;
 	}
 
 	/**
@@ -258,7 +436,11 @@ public class Cards implements ICards {
 	@Override
 	public void remvoeAll() {
 		fireCardsPropertyChanges();
-		cards = new Vector<Card>();
+		ids = new int[INITIAL_CAPACITY];
+		size = 0;
+		sorted = true;
+		signature = 0L;
+		key = 0L;
 	}
 
 	/**
@@ -288,15 +470,25 @@ public class Cards implements ICards {
 	 */
 	@Override
 	public void shuffle() {
-		Collections.shuffle(cards);
+		for (int i = size - 1; i > 0; i--) {
+			int k = random.nextInt(i + 1);
+			int id = ids[i];
+			ids[i] = ids[k];
+			ids[k] = id;
+		}
+		sorted = size < 2;
 	}
 
 	/**
-	 * Sort the cards by ranks, and then by suits, in ascending order.
+	 * Sort the cards by ranks, and then by suits, in ascending order. Unless
+	 * the cards have been shuffled, they are already in order.
 	 */
 	@Override
 	public void sort() {
-		Collections.sort(cards, comparator);
+		if (!sorted) {
+			Arrays.sort(ids, 0, size);
+			sorted = true;
+		}
 	}
 
 	/**
@@ -308,8 +500,8 @@ public class Cards implements ICards {
 	public String toCardsString() {
 		String str = "[";
 
-		for (Card c : cards) {
-			str += c.toString() + " ";
+		for (int i = 0; i < size; i++) {
+			str += getCard(i).toString() + " ";
 		}
 
 		str += "]";
@@ -0,0 +1,293 @@
+package game.card;
+
+/**
+ * This class decides the CardsType and the value of cards by a table lookup.
+ * 
+ * The cards are summarized in one pass into a signature: the number of cards
+ * of each rank, 3 bits for each level of rank (see Rank.getLevel()). The
+ * rules of the game only depend on ranks, thus the signature is enough to
+ * decide the type and the value of the cards. All signatures of valid
+ * combinations are computed when the class is loaded, and stored in a table.
+ * 
+ * The result is the same as CardsType.validateCards(ICards), but the cards
+ * are not sorted, and no other list is created.
+ * 
+ * @author Riki
+ * 
+ */
+public class CardsClassifier {
+
+	/**
+	 * The number of bits used for each level of rank in a signature.
+	 */
+	public static final int BITS_PER_LEVEL = 3;
+
+	/**
+	 * The maximum number of cards of one rank in a signature.
+	 */
+	public static final int MAX_COUNT = (1 << BITS_PER_LEVEL) - 1;
+
+	/**
+	 * The signature of cards that can not be summarized: too many cards of the
+	 * same rank.
+	 */
+	public static final long INVALID = -1L;
+
+	/**
+	 * The mask of one level in a signature.
+	 */
+	private static final long LEVEL_MASK = MAX_COUNT;
+
+	/**
+	 * The size of the lookup table, must be a power of 2.
+	 */
+	private static final int TABLE_SIZE = 1 << 11;
+
+	/**
+	 * The keys of the lookup table: the signatures. 0 for empty slot.
+	 */
+	private static final long[] KEYS = new long[TABLE_SIZE];
+
+	/**
+	 * The entries of the lookup table: the type and the value of a signature.
+	 */
+	private static final int[] ENTRIES = new int[TABLE_SIZE];
+
+	/**
+	 * The entry of the invalid cards.
+	 */
+	private static final int ERR_ENTRY = entry(CardsType.ERR, -1);
+
+	static {
+		initTable();
+	}
+
+	/**
+	 * Validate the CardsType for cards, set the type and the value of the
+	 * cards.
+	 * 
+	 * @param cards
+	 *            The cards to be calculated.
+	 * @return True if a valid CardsType is found to match cards, otherwise
+	 *         false.
+	 */
+	public static boolean classify(ICards cards) {
+		int entry = lookup(signatureOf(cards));
+		CardsType type = getType(entry);
+		cards.setCardsType(type);
+		cards.setCardsValue(getValue(entry));
+		return type != CardsType.ERR;
+	}
+
+	/**
+	 * Get the signature of a single card of the given rank. The signature of
+	 * some cards is the sum of the signature of each card.
+	 * 
+	 * @param rank
+	 *            The rank.
+	 * @return The signature of one card of the rank.
+	 */
+	public static long signatureOf(Rank rank) {
+		return 1L << (rank.getLevel() * BITS_PER_LEVEL);
+	}
+
+	/**
+	 * Get the signature of the cards.
+	 * 
+	 * @param cards
+	 *            The cards.
+	 * @return The signature of the cards, or INVALID if there are too many
+	 *         cards of the same rank.
+	 */
+	public static long signatureOf(ICards cards) {
+		if (cards instanceof Cards) {
+			return ((Cards) cards).getSignature();
+		}
+		if (cards instanceof CardMask) {
+			return ((CardMask) cards).getSignature();
+		}
+
+		long signature = 0L;
+		for (int i = 0; i < cards.getSize(); i++) {
+			int shift = cards.getCard(i).getRank().getLevel() * BITS_PER_LEVEL;
+			if (((signature >>> shift) & LEVEL_MASK) == LEVEL_MASK) {
+				return INVALID;
+			}
+			signature += 1L << shift;
+		}
+		return signature;
+	}
+
+	/**
+	 * Get the number of cards of the given level in the signature.
+	 * 
+	 * @param signature
+	 *            The signature.
+	 * @param level
+	 *            The level of rank.
+	 * @return The number of cards of the level.
+	 */
+	public static int countOf(long signature, int level) {
+		return (int) ((signature >>> (level * BITS_PER_LEVEL)) & LEVEL_MASK);
+	}
+
+	/**
+	 * Look up the entry of the signature.
+	 * 
+	 * @param signature
+	 *            The signature of the cards.
+	 * @return The entry, use getType(int) and getValue(int) to read it.
+	 */
+	public static int lookup(long signature) {
+		if (signature == 0L || signature == INVALID) {
+			return ERR_ENTRY;
+		}
+
+		int slot = slotOf(signature);
+		while (KEYS[slot] != 0L) {
+			if (KEYS[slot] == signature) {
+				return ENTRIES[slot];
+			}
+			slot = (slot + 1) & (TABLE_SIZE - 1);
+		}
+		return ERR_ENTRY;
+	}
+
+	/**
+	 * Get the CardsType of the signature.
+	 * 
+	 * @param signature
+	 *            The signature of the cards.
+	 * @return The CardsType.
+	 */
+	public static CardsType getType(long signature) {
+		return getType(lookup(signature));
+	}
+
+	/**
+	 * Get the CardsType of an entry.
+	 * 
+	 * @param entry
+	 *            The entry.
+	 * @return The CardsType.
+	 */
+	public static CardsType getType(int entry) {
+		return CardsType.values()[entry >>> 16];
+	}
+
+	/**
+	 * Get the value of an entry.
+	 * 
+	 * @param entry
+	 *            The entry.
+	 * @return The value, -1 for ERR.
+	 */
+	public static int getValue(int entry) {
+		return (short) (entry & 0xFFFF);
+	}
+
+	/**
+	 * Create an entry of the table.
+	 * 
+	 * @param type
+	 *            The CardsType.
+	 * @param value
+	 *            The value.
+	 * @return The entry.
+	 */
+	private static int entry(CardsType type, int value) {
+		return (type.ordinal() << 16) | (value & 0xFFFF);
+	}
+
+	/**
+	 * Get the first slot of the signature in the table.
+	 * 
+	 * @param signature
+	 *            The signature.
+	 * @return The slot.
+	 */
+	private static int slotOf(long signature) {
+		long h = signature * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 53) & (TABLE_SIZE - 1);
+	}
+
+	/**
+	 * Put a signature into the table.
+	 * 
+	 * @param signature
+	 *            The signature.
+	 * @param type
+	 *            The CardsType.
+	 * @param level
+	 *            The level of the rank which gives the value.
+	 */
+	private static void put(long signature, CardsType type, int level) {
+		int slot = slotOf(signature);
+		while (KEYS[slot] != 0L && KEYS[slot] != signature) {
+			slot = (slot + 1) & (TABLE_SIZE - 1);
+		}
+		KEYS[slot] = signature;
+		ENTRIES[slot] = entry(type, Rank.getRank(level).getValue());
+	}
+
+	/**
+	 * Get the signature of {@code count} cards of the level.
+	 * 
+	 * @param level
+	 *            The level.
+	 * @param count
+	 *            The number of cards.
+	 * @return The signature.
+	 */
+	private static long repeat(int level, int count) {
+		return ((long) count) << (level * BITS_PER_LEVEL);
+	}
+
+	/**
+	 * Fill the table with all valid combinations. The rules are the same as
+	 * the ones in CardsType, only depending on ranks.
+	 */
+	private static void initTable() {
+		for (int l = 0; l < Rank.LEVELS; l++) {
+			Rank r = Rank.getRank(l);
+			if (r == null) {
+				continue;
+			}
+
+			put(repeat(l, 1), CardsType.SINGLE, l);
+			put(repeat(l, 2), CardsType.PAIR, l);
+			// 3 Aces is special bomb, not triple.
+			put(repeat(l, 3), (r == Rank.ACE) ? CardsType.BOMB
+					: CardsType.TRIPLE, l);
+			put(repeat(l, 4), CardsType.BOMB, l);
+
+			// the triple of a TRIPLE_WITH_PAIR can not be Aces.
+			if (r == Rank.ACE) {
+				continue;
+			}
+			for (int p = 0; p < Rank.LEVELS; p++) {
+				if (Rank.getRank(p) != null) {
+					// [x,x,x,x,x] also passes the TRIPLE_WITH_PAIR test.
+					put(repeat(l, 3) + repeat(p, 2),
+							CardsType.TRIPLE_WITH_PAIR, l);
+				}
+			}
+		}
+
+		// consecutive ranks: from level lo to level hi.
+		for (int lo = 0; lo < Rank.LEVELS; lo++) {
+			long singles = 0L;
+			for (int hi = lo; Rank.getRank(hi) != null; hi++) {
+				singles += repeat(hi, 1);
+				int length = hi - lo + 1;
+				if (length >= 2) {
+					put(singles * 2, CardsType.MULTIPAIR, lo);
+					put(singles * 3, CardsType.MULTITRIPLE, lo);
+				}
+				if (length >= 5) {
+					put(singles, CardsType.FLUSH, lo);
+				}
+			}
+		}
+	}
+}
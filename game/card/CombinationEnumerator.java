@@ -0,0 +1,314 @@
+package game.card;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class enumerates all k-card subsets of the deck, and classifies each of
+ * them by an IPlayClassifier.
+ * 
+ * The subsets are held in bitmasks (see CardMask). The work is split by fixing
+ * the lowest cards of the subsets, and each part is run as a task of a
+ * ForkJoinPool. The subsets of a part are enumerated in ascending order by
+ * Gosper's hack: the next integer with the same number of bits set.
+ * 
+ * Two classifiers could also be compared on every subset, which is used to
+ * verify a fast classifier against the reference one: CardsType.validateCards.
+ * 
+ * @author Riki
+ * 
+ */
+public class CombinationEnumerator {
+
+	/**
+	 * The maximum number of cards of a subset.
+	 */
+	public static final int MAX_K = 16;
+
+	/**
+	 * The classifier by the table of CardsClassifier.
+	 */
+	public static final IPlayClassifier FAST = new IPlayClassifier() {
+		@Override
+		public int classify(long mask) {
+			long signature = new CardMask(mask).getSignature();
+			int entry = CardsClassifier.lookup(signature);
+			return PlayCode.of(CardsClassifier.getType(entry),
+					CardsClassifier.getValue(entry), Long.bitCount(mask),
+					signature);
+		}
+	};
+
+	/**
+	 * The reference classifier: CardsType.validateCards(ICards).
+	 */
+	public static final IPlayClassifier REFERENCE = new IPlayClassifier() {
+		@Override
+		public int classify(long mask) {
+			Cards cards = new CardMask(mask).toCards();
+			CardsType.validateCards(cards);
+			return PlayCode.of(cards.getCardsType(), cards.getCardsValue(),
+					cards.getSize(), cards.getSignature());
+		}
+	};
+
+	/**
+	 * The number of subsets below which a part is not split any more.
+	 */
+	private static final long THRESHOLD = 1 << 14;
+
+	/**
+	 * The index of the number of mismatches in the results.
+	 */
+	private static final int MISMATCHES = CardsType.values().length;
+
+	private ForkJoinPool pool;
+	private long count;
+	private long mismatches;
+	private long nanos;
+	private long[] typeCounts;
+	private List<Long> samples;
+
+	/**
+	 * The constructor for the CombinationEnumerator, using all processors.
+	 */
+	public CombinationEnumerator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The constructor for the CombinationEnumerator.
+	 * 
+	 * @param parallelism
+	 *            The number of threads.
+	 */
+	public CombinationEnumerator(int parallelism) {
+		pool = new ForkJoinPool(parallelism);
+		typeCounts = new long[CardsType.values().length];
+		samples = new ArrayList<Long>();
+	}
+
+	/**
+	 * Get the next integer with the same number of bits set: Gosper's hack.
+	 * 
+	 * @param v
+	 *            The current integer, not 0.
+	 * @return The next integer.
+	 */
+	public static long next(long v) {
+		long c = v & -v;
+		long r = v + c;
+		return (((r ^ v) >>> 2) / c) | r;
+	}
+
+	/**
+	 * Get the number of k-subsets of n elements.
+	 * 
+	 * @param n
+	 *            The number of elements.
+	 * @param k
+	 *            The size of the subsets.
+	 * @return The binomial coefficient.
+	 */
+	public static long choose(int n, int k) {
+		if (k < 0 || k > n) {
+			return 0;
+		}
+		long c = 1;
+		for (int i = 1; i <= k; i++) {
+			c = c * (n - k + i) / i;
+		}
+		return c;
+	}
+
+	/**
+	 * Classify all k-card subsets of the deck.
+	 * 
+	 * @param k
+	 *            The number of cards of the subsets.
+	 * @param classifier
+	 *            The classifier.
+	 * @return The number of subsets of each CardsType, indexed by the ordinal
+	 *         of the CardsType.
+	 */
+	public long[] classify(int k, IPlayClassifier classifier) {
+		run(k, classifier, null);
+		return typeCounts.clone();
+	}
+
+	/**
+	 * Classify all k-card subsets of the deck by both classifiers, and count
+	 * the subsets on which they do not agree. Some of the mismatched subsets
+	 * are kept, see getSamples().
+	 * 
+	 * @param k
+	 *            The number of cards of the subsets.
+	 * @param classifier
+	 *            The classifier to be verified.
+	 * @param reference
+	 *            The reference classifier.
+	 * @return The number of mismatched subsets.
+	 */
+	public long verify(int k, IPlayClassifier classifier,
+			IPlayClassifier reference) {
+		run(k, classifier, reference);
+		return mismatches;
+	}
+
+	/**
+	 * Get the number of subsets of the last run.
+	 * 
+	 * @return The number of subsets.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the time of the last run.
+	 * 
+	 * @return The time in nanoseconds.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * Get the throughput of the last run.
+	 * 
+	 * @return The number of subsets classified per second.
+	 */
+	public double getThroughput() {
+		return (nanos == 0) ? 0 : count * 1e9 / nanos;
+	}
+
+	/**
+	 * Get some of the mismatched subsets of the last verification.
+	 * 
+	 * @return The masks of the subsets.
+	 */
+	public List<Long> getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Shut down the threads.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Run the enumeration.
+	 * 
+	 * @param k
+	 *            The number of cards of the subsets.
+	 * @param classifier
+	 *            The classifier.
+	 * @param reference
+	 *            The reference classifier, null if not verifying.
+	 */
+	private void run(int k, IPlayClassifier classifier,
+			IPlayClassifier reference) {
+		if (k < 1 || k > MAX_K) {
+			throw new IllegalArgumentException("k must be in [1, " + MAX_K
+					+ "]: " + k);
+		}
+
+		samples.clear();
+		long start = System.nanoTime();
+		long[] result = pool.invoke(new Task(0L, 0, k, classifier, reference));
+		nanos = System.nanoTime() - start;
+
+		count = choose(CardMask.DECK_SIZE, k);
+		System.arraycopy(result, 0, typeCounts, 0, typeCounts.length);
+		mismatches = result[MISMATCHES];
+	}
+
+	/**
+	 * Keep a mismatched subset, at most 10 of them.
+	 * 
+	 * @param mask
+	 *            The mask of the subset.
+	 */
+	private synchronized void addSample(long mask) {
+		if (samples.size() < 10) {
+			samples.add(mask);
+		}
+	}
+
+	/**
+	 * A part of the enumeration: the subsets of the prefix with
+	 * {@code remaining} more cards chosen from the bit {@code from}.
+	 */
+	private class Task extends RecursiveTask<long[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private long prefix;
+		private int from;
+		private int remaining;
+		private IPlayClassifier classifier;
+		private IPlayClassifier reference;
+
+		public Task(long prefix, int from, int remaining,
+				IPlayClassifier classifier, IPlayClassifier reference) {
+			this.prefix = prefix;
+			this.from = from;
+			this.remaining = remaining;
+			this.classifier = classifier;
+			this.reference = reference;
+		}
+
+		@Override
+		protected long[] compute() {
+			int width = CardMask.DECK_SIZE - from;
+			if (remaining == 0 || choose(width, remaining) <= THRESHOLD) {
+				return enumerate(width);
+			}
+
+			// fix the next card of the subsets.
+			List<Task> tasks = new ArrayList<Task>();
+			for (int i = from; i <= CardMask.DECK_SIZE - remaining; i++) {
+				tasks.add(new Task(prefix | (1L << i), i + 1, remaining - 1,
+						classifier, reference));
+			}
+			invokeAll(tasks);
+
+			long[] result = new long[MISMATCHES + 1];
+			for (Task t : tasks) {
+				long[] r = t.join();
+				for (int i = 0; i < result.length; i++) {
+					result[i] += r[i];
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Enumerate all subsets of this part by Gosper's hack.
+		 * 
+		 * @param width
+		 *            The number of bits to choose from.
+		 * @return The results.
+		 */
+		private long[] enumerate(int width) {
+			long[] result = new long[MISMATCHES + 1];
+			long end = 1L << width;
+			long v = (1L << remaining) - 1;
+			do {
+				long mask = prefix | (v << from);
+				int code = classifier.classify(mask);
+				result[PlayCode.getType(code).ordinal()]++;
+				if (reference != null && reference.classify(mask) != code) {
+					result[MISMATCHES]++;
+					addSample(mask);
+				}
+				v = (v == 0) ? end : next(v);
+			} while (v < end);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package game.card;
+
+/**
+ * This interface is used to receive the plays found by the LegalMoveGenerator.
+ * 
+ * A play is described by primitive values only, thus no object is created for
+ * each play. The cards of a play could be picked from the hand by the
+ * signature, see LegalMoveGenerator.pick(ICards, long).
+ * 
+ * @author Riki
+ * 
+ */
+public interface IMoveVisitor {
+
+	/**
+	 * Visit a legal play.
+	 * 
+	 * @param type
+	 *            The CardsType of the play.
+	 * @param value
+	 *            The value of the play, the same as Cards.getCardsValue().
+	 * @param size
+	 *            The number of cards of the play.
+	 * @param signature
+	 *            The rank-count signature of the play. See CardsClassifier.
+	 */
+	public void visit(CardsType type, int value, int size, long signature);
+}
@@ -0,0 +1,23 @@
+package game.card;
+
+/**
+ * This interface is used to classify cards held in a bitmask (see CardMask).
+ * 
+ * The implementations are used by the CombinationEnumerator from several
+ * threads at the same time, thus they must not keep any state.
+ * 
+ * @author Riki
+ * 
+ */
+public interface IPlayClassifier {
+
+	/**
+	 * Classify the cards.
+	 * 
+	 * @param mask
+	 *            The mask of the cards, see CardMask.
+	 * @return The PlayCode of the cards, PlayCode.ERR if the cards is not a
+	 *         valid play.
+	 */
+	public int classify(long mask);
+}
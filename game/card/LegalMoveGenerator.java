@@ -0,0 +1,356 @@
+package game.card;
+
+/**
+ * This class enumerates all legal plays of a hand against the cards on the
+ * desk.
+ * 
+ * The hand is given by its rank-count signature (see CardsClassifier), thus a
+ * Cards or a CardMask could be used. Each play that is a valid combination and
+ * is greater than the desk cards, as decided by Cards.isGreaterThan(ICards), is
+ * passed to an IMoveVisitor. If the desk is empty, every valid combination of
+ * the hand is a legal play.
+ * 
+ * Plays only differing in suits are the same play: the rules only depend on
+ * ranks. The plays are visited in the order of the CardsType, and then in
+ * ascending order of the value. No object is created during the enumeration.
+ * 
+ * @author Riki
+ * 
+ */
+public class LegalMoveGenerator {
+
+	/**
+	 * Enumerate all legal plays of the hand against the desk cards.
+	 * 
+	 * @param hand
+	 *            The cards on hand.
+	 * @param desk
+	 *            The cards on the desk, null or empty if the desk is empty.
+	 * @param visitor
+	 *            The visitor of the plays.
+	 * @return The number of plays.
+	 */
+	public static int generate(ICards hand, ICards desk, IMoveVisitor visitor) {
+		if (desk == null || desk.isEmpty()) {
+			return generate(CardsClassifier.signatureOf(hand), null, -1, 0,
+					visitor);
+		}
+		return generate(CardsClassifier.signatureOf(hand), desk.getCardsType(),
+				desk.getCardsValue(), desk.getSize(), visitor);
+	}
+
+	/**
+	 * Enumerate all legal plays of the hand against the desk play.
+	 * 
+	 * @param hand
+	 *            The signature of the cards on hand.
+	 * @param deskType
+	 *            The CardsType of the desk cards, null if the desk is empty.
+	 * @param deskValue
+	 *            The value of the desk cards.
+	 * @param deskSize
+	 *            The number of the desk cards.
+	 * @param visitor
+	 *            The visitor of the plays.
+	 * @return The number of plays.
+	 */
+	public static int generate(long hand, CardsType deskType, int deskValue,
+			int deskSize, IMoveVisitor visitor) {
+		if (hand == CardsClassifier.INVALID) {
+			return 0;
+		}
+		if (deskType == CardsType.ERR) {
+			// nothing is greater than an invalid play.
+			return 0;
+		}
+
+		boolean lead = (deskType == null);
+		int count = 0;
+
+		if (lead || deskType == CardsType.SINGLE) {
+			count += generateSets(hand, CardsType.SINGLE, 1, deskType,
+					deskValue, visitor);
+		}
+		if (lead || deskType == CardsType.PAIR) {
+			count += generateSets(hand, CardsType.PAIR, 2, deskType,
+					deskValue, visitor);
+		}
+		if (lead || deskType == CardsType.TRIPLE) {
+			count += generateSets(hand, CardsType.TRIPLE, 3, deskType,
+					deskValue, visitor);
+		}
+		if (lead || deskType == CardsType.TRIPLE_WITH_PAIR) {
+			count += generateTripleWithPair(hand, deskType, deskValue, visitor);
+		}
+		if (lead || deskType == CardsType.MULTIPAIR) {
+			count += generateRuns(hand, CardsType.MULTIPAIR, 2, 2, deskType,
+					deskValue, deskSize, visitor);
+		}
+		if (lead || deskType == CardsType.MULTITRIPLE) {
+			count += generateRuns(hand, CardsType.MULTITRIPLE, 3, 2, deskType,
+					deskValue, deskSize, visitor);
+		}
+		if (lead || deskType == CardsType.FLUSH) {
+			count += generateRuns(hand, CardsType.FLUSH, 1, 5, deskType,
+					deskValue, deskSize, visitor);
+		}
+		// bombs are greater than any other type.
+		count += generateBombs(hand, deskType, deskValue, visitor);
+
+		return count;
+	}
+
+	/**
+	 * Count all legal plays of the hand against the desk cards.
+	 * 
+	 * @param hand
+	 *            The cards on hand.
+	 * @param desk
+	 *            The cards on the desk, null or empty if the desk is empty.
+	 * @return The number of plays.
+	 */
+	public static int count(ICards hand, ICards desk) {
+		return generate(hand, desk, null);
+	}
+
+	/**
+	 * Pick the cards of a play from the hand. The first cards of each rank in
+	 * the hand are picked.
+	 * 
+	 * @param hand
+	 *            The cards on hand.
+	 * @param signature
+	 *            The signature of the play.
+	 * @return The cards of the play, or null if the hand does not contain
+	 *         enough cards.
+	 */
+	public static Cards pick(ICards hand, long signature) {
+		Cards cs = new Cards();
+		long rest = signature;
+		for (int i = 0; i < hand.getSize() && rest != 0L; i++) {
+			Card card = hand.getCard(i);
+			if (CardsClassifier.countOf(rest, card.getRank().getLevel()) > 0) {
+				cs.addCard(card);
+				rest -= CardsClassifier.signatureOf(card.getRank());
+			}
+		}
+		return (rest == 0L) ? cs : null;
+	}
+
+	/**
+	 * Enumerate the plays of {@code count} cards of the same rank: SINGLE, PAIR
+	 * or TRIPLE.
+	 * 
+	 * @param hand
+	 *            The signature of the hand.
+	 * @param type
+	 *            The CardsType of the plays.
+	 * @param count
+	 *            The number of cards of the rank.
+	 * @param deskType
+	 *            The CardsType of the desk, null if empty.
+	 * @param deskValue
+	 *            The value of the desk.
+	 * @param visitor
+	 *            The visitor.
+	 * @return The number of plays.
+	 */
+	private static int generateSets(long hand, CardsType type, int count,
+			CardsType deskType, int deskValue, IMoveVisitor visitor) {
+		int n = 0;
+		for (int l = 0; l < Rank.LEVELS; l++) {
+			Rank r = Rank.getRank(l);
+			if (r == null || CardsClassifier.countOf(hand, l) < count) {
+				continue;
+			}
+			// 3 Aces is a bomb, not a triple.
+			if (type == CardsType.TRIPLE && r == Rank.ACE) {
+				continue;
+			}
+			if (deskType != null && r.getValue() <= deskValue) {
+				continue;
+			}
+			n++;
+			if (visitor != null) {
+				visitor.visit(type, r.getValue(), count, repeat(l, count));
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Enumerate the plays of TRIPLE_WITH_PAIR.
+	 * 
+	 * @param hand
+	 *            The signature of the hand.
+	 * @param deskType
+	 *            The CardsType of the desk, null if empty.
+	 * @param deskValue
+	 *            The value of the desk.
+	 * @param visitor
+	 *            The visitor.
+	 * @return The number of plays.
+	 */
+	private static int generateTripleWithPair(long hand, CardsType deskType,
+			int deskValue, IMoveVisitor visitor) {
+		int n = 0;
+		for (int t = 0; t < Rank.LEVELS; t++) {
+			Rank r = Rank.getRank(t);
+			// the triple can not be Aces.
+			if (r == null || r == Rank.ACE
+					|| CardsClassifier.countOf(hand, t) < 3) {
+				continue;
+			}
+			if (deskType != null && r.getValue() <= deskValue) {
+				continue;
+			}
+			for (int p = 0; p < Rank.LEVELS; p++) {
+				if (p == t || Rank.getRank(p) == null
+						|| CardsClassifier.countOf(hand, p) < 2) {
+					continue;
+				}
+				n++;
+				if (visitor != null) {
+					visitor.visit(CardsType.TRIPLE_WITH_PAIR, r.getValue(), 5,
+							repeat(t, 3) + repeat(p, 2));
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Enumerate the plays of consecutive ranks: MULTIPAIR, MULTITRIPLE or
+	 * FLUSH.
+	 * 
+	 * @param hand
+	 *            The signature of the hand.
+	 * @param type
+	 *            The CardsType of the plays.
+	 * @param count
+	 *            The number of cards of each rank.
+	 * @param minLength
+	 *            The minimum number of ranks.
+	 * @param deskType
+	 *            The CardsType of the desk, null if empty.
+	 * @param deskValue
+	 *            The value of the desk.
+	 * @param deskSize
+	 *            The number of cards of the desk.
+	 * @param visitor
+	 *            The visitor.
+	 * @return The number of plays.
+	 */
+	private static int generateRuns(long hand, CardsType type, int count,
+			int minLength, CardsType deskType, int deskValue, int deskSize,
+			IMoveVisitor visitor) {
+		int n = 0;
+		for (int lo = 0; lo < Rank.LEVELS; lo++) {
+			Rank r = Rank.getRank(lo);
+			if (r == null) {
+				continue;
+			}
+			if (deskType != null && r.getValue() <= deskValue) {
+				continue;
+			}
+
+			long run = 0L;
+			for (int hi = lo; Rank.getRank(hi) != null
+					&& CardsClassifier.countOf(hand, hi) >= count; hi++) {
+				run += repeat(hi, count);
+				int length = hi - lo + 1;
+				if (length < minLength) {
+					continue;
+				}
+				// a greater play must have the same number of cards.
+				if (deskType != null && length * count != deskSize) {
+					continue;
+				}
+				n++;
+				if (visitor != null) {
+					visitor.visit(type, r.getValue(), length * count, run);
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Enumerate the plays of BOMB: 4 cards of a rank, or 3 Aces.
+	 * 
+	 * @param hand
+	 *            The signature of the hand.
+	 * @param deskType
+	 *            The CardsType of the desk, null if empty.
+	 * @param deskValue
+	 *            The value of the desk.
+	 * @param visitor
+	 *            The visitor.
+	 * @return The number of plays.
+	 */
+	private static int generateBombs(long hand, CardsType deskType,
+			int deskValue, IMoveVisitor visitor) {
+		int n = 0;
+		for (int l = 0; l < Rank.LEVELS; l++) {
+			Rank r = Rank.getRank(l);
+			if (r == null) {
+				continue;
+			}
+			int size = (r == Rank.ACE) ? 3 : 4;
+			if (CardsClassifier.countOf(hand, l) < size) {
+				continue;
+			}
+			if (deskType == CardsType.BOMB && r.getValue() <= deskValue) {
+				continue;
+			}
+			n++;
+			if (visitor != null) {
+				visitor.visit(CardsType.BOMB, r.getValue(), size,
+						repeat(l, size));
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Get the signature of {@code count} cards of the level.
+	 * 
+	 * @param level
+	 *            The level.
+	 * @param count
+	 *            The number of cards.
+	 * @return The signature.
+	 */
+	private static long repeat(int level, int count) {
+		return ((long) count) << (level * CardsClassifier.BITS_PER_LEVEL);
+	}
+
+	/**
+	 * for test purpose.
+	 */
+	public static void main(String[] args) {
+		final Cards hand = CardFactory.createDeck();
+		hand.shuffle();
+		while (hand.getSize() > 16) {
+			hand.removeCard(0);
+		}
+		hand.sort();
+
+		Cards desk = new Cards();
+		desk.addCard(CardFactory.createCard(Suit.SPADES, Rank.FIVE));
+		desk.addCard(CardFactory.createCard(Suit.HEARTS, Rank.FIVE));
+
+		System.out.println("hand : " + hand);
+		System.out.println("desk : " + desk);
+		IMoveVisitor printer = new IMoveVisitor() {
+			@Override
+			public void visit(CardsType type, int value, int size,
+					long signature) {
+				System.out.println("\t" + pick(hand, signature));
+			}
+		};
+		System.out.println("plays against the desk: "
+				+ generate(hand, desk, printer));
+		System.out.println("plays on an empty desk: " + count(hand, null));
+	}
+}
@@ -0,0 +1,315 @@
+package game.card;
+
+/**
+ * This class packs a play into a single int: the play code.
+ * 
+ * The rules of the game only depend on the CardsType, the value and the number
+ * of cards of a play, thus a play is packed as follows, from the highest bits:
+ * 
+ * type (the ordinal of CardsType) | size | level of the value | level of the
+ * pair of a TRIPLE_WITH_PAIR
+ * 
+ * The level is the one of Rank.getLevel(). Two plays can be compared with a
+ * few integer operations by beats(int, int), which gives the same result as
+ * Cards.isGreaterThan(ICards). The codes are ordered by type, size and value.
+ * 
+ * An empty play (a pass) is PASS, any invalid play is ERR.
+ * 
+ * @author Riki
+ * 
+ */
+public class PlayCode {
+
+	/**
+	 * The code of an empty play: a pass.
+	 */
+	public static final int PASS = 0;
+
+	/**
+	 * The code of an invalid play.
+	 */
+	public static final int ERR = CardsType.ERR.ordinal() << 20;
+
+	private static final int PAIR_SHIFT = 0;
+	private static final int LEVEL_SHIFT = 4;
+	private static final int SIZE_SHIFT = 8;
+	private static final int TYPE_SHIFT = 20;
+
+	private static final int LEVEL_MASK = 0xF;
+	private static final int SIZE_MASK = 0xFFF;
+
+	/**
+	 * The bits of the type and the size: plays can only be compared if they
+	 * are equal, except bombs.
+	 */
+	private static final int SHAPE_MASK = ~((1 << SIZE_SHIFT) - 1);
+
+	private static final int BOMB_TYPE = CardsType.BOMB.ordinal();
+	private static final int ERR_TYPE = CardsType.ERR.ordinal();
+
+	/**
+	 * The cards where the cards of a play are picked from, when no source is
+	 * given.
+	 */
+	private static final Cards DECK = CardFactory.createDeck();
+
+	static {
+		DECK.sort();
+	}
+
+	/**
+	 * Get the code of the cards.
+	 * 
+	 * @param cards
+	 *            The cards.
+	 * @return The code of the play, PASS if the cards is empty, ERR if the
+	 *         cards is not a valid play.
+	 */
+	public static int of(ICards cards) {
+		if (cards.isEmpty()) {
+			return PASS;
+		}
+		CardsType type = cards.getCardsType();
+		if (type == null || type == CardsType.ERR) {
+			return ERR;
+		}
+		return of(type, cards.getCardsValue(), cards.getSize(),
+				CardsClassifier.signatureOf(cards));
+	}
+
+	/**
+	 * Get the code of a play, for example, a play given by the
+	 * LegalMoveGenerator.
+	 * 
+	 * @param type
+	 *            The CardsType of the play.
+	 * @param value
+	 *            The value of the play.
+	 * @param size
+	 *            The number of cards.
+	 * @param signature
+	 *            The rank-count signature of the play, only used to find the
+	 *            pair of a TRIPLE_WITH_PAIR.
+	 * @return The code of the play.
+	 */
+	public static int of(CardsType type, int value, int size, long signature) {
+		if (type == null || type == CardsType.ERR) {
+			return ERR;
+		}
+		int level = value / Rank.STEP - 3;
+		int pair = 0;
+		if (type == CardsType.TRIPLE_WITH_PAIR) {
+			pair = level;
+			for (int l = 0; l < Rank.LEVELS; l++) {
+				if (l != level && CardsClassifier.countOf(signature, l) == 2) {
+					pair = l;
+					break;
+				}
+			}
+		}
+		return (type.ordinal() << TYPE_SHIFT) | (size << SIZE_SHIFT)
+				| (level << LEVEL_SHIFT) | (pair << PAIR_SHIFT);
+	}
+
+	/**
+	 * Test if the play a beats the play b, according to the rules specified
+	 * in the game rule specifications.
+	 * 
+	 * @param a
+	 *            The code of a play.
+	 * @param b
+	 *            The code of the play to be compared with.
+	 * @return True if a is greater than b, false otherwise.
+	 */
+	public static boolean beats(int a, int b) {
+		int ta = a >>> TYPE_SHIFT;
+		int tb = b >>> TYPE_SHIFT;
+		if (a == PASS || b == PASS || ta == ERR_TYPE || tb == ERR_TYPE) {
+			return false;
+		}
+		// bombs beat any other type.
+		if (ta == BOMB_TYPE && tb != BOMB_TYPE) {
+			return true;
+		}
+		if (ta == BOMB_TYPE) {
+			return getLevel(a) > getLevel(b);
+		}
+		return ((a ^ b) & SHAPE_MASK) == 0 && getLevel(a) > getLevel(b);
+	}
+
+	/**
+	 * Get the CardsType of the code.
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The CardsType, null for PASS.
+	 */
+	public static CardsType getType(int code) {
+		if (code == PASS) {
+			return null;
+		}
+		return CardsType.values()[code >>> TYPE_SHIFT];
+	}
+
+	/**
+	 * Get the value of the code, the same as Cards.getCardsValue().
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The value, -1 for PASS and ERR.
+	 */
+	public static int getValue(int code) {
+		if (code == PASS || code == ERR) {
+			return -1;
+		}
+		return Rank.getRank(getLevel(code)).getValue();
+	}
+
+	/**
+	 * Get the number of cards of the code.
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The number of cards.
+	 */
+	public static int getSize(int code) {
+		return (code >>> SIZE_SHIFT) & SIZE_MASK;
+	}
+
+	/**
+	 * Get the level of the value of the code. See Rank.getLevel().
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The level.
+	 */
+	public static int getLevel(int code) {
+		return (code >>> LEVEL_SHIFT) & LEVEL_MASK;
+	}
+
+	/**
+	 * Get the level of the pair of a TRIPLE_WITH_PAIR.
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The level of the pair, 0 for the other types.
+	 */
+	public static int getPairLevel(int code) {
+		return (code >>> PAIR_SHIFT) & LEVEL_MASK;
+	}
+
+	/**
+	 * Get the rank-count signature of the cards of the code. See
+	 * CardsClassifier.
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The signature, 0 for PASS and ERR.
+	 */
+	public static long signatureOf(int code) {
+		if (code == PASS || code == ERR) {
+			return 0L;
+		}
+		int level = getLevel(code);
+		int size = getSize(code);
+		switch (getType(code)) {
+		case SINGLE:
+		case PAIR:
+		case TRIPLE:
+		case BOMB:
+			return repeat(level, size);
+		case TRIPLE_WITH_PAIR:
+			return repeat(level, 3) + repeat(getPairLevel(code), 2);
+		case MULTIPAIR:
+			return run(level, size / 2, 2);
+		case MULTITRIPLE:
+			return run(level, size / 3, 3);
+		case FLUSH:
+			return run(level, size, 1);
+		}
+		return 0L;
+	}
+
+	/**
+	 * Pick the cards of the code from the source cards.
+	 * 
+	 * @param code
+	 *            The code.
+	 * @param source
+	 *            The cards where the cards are picked from, for example, the
+	 *            cards on hand.
+	 * @return The cards of the play, or null if the source does not contain
+	 *         enough cards.
+	 */
+	public static Cards toCards(int code, ICards source) {
+		if (code == ERR) {
+			return null;
+		}
+		return LegalMoveGenerator.pick(source, signatureOf(code));
+	}
+
+	/**
+	 * Create the cards of the code, picked from a deck.
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The cards of the play, or null if the code is ERR.
+	 */
+	public static Cards toCards(int code) {
+		return toCards(code, DECK);
+	}
+
+	/**
+	 * Get the String representation of the code.
+	 * 
+	 * @param code
+	 *            The code.
+	 * @return The String representation.
+	 */
+	public static String toString(int code) {
+		if (code == PASS) {
+			return "PASS";
+		}
+		if (code == ERR) {
+			return "ERR";
+		}
+		String str = getType(code) + " " + Rank.getRank(getLevel(code))
+				+ " x" + getSize(code);
+		if (getType(code) == CardsType.TRIPLE_WITH_PAIR) {
+			str += " " + Rank.getRank(getPairLevel(code));
+		}
+		return str;
+	}
+
+	/**
+	 * Get the signature of {@code count} cards of the level.
+	 * 
+	 * @param level
+	 *            The level.
+	 * @param count
+	 *            The number of cards.
+	 * @return The signature.
+	 */
+	private static long repeat(int level, int count) {
+		return ((long) count) << (level * CardsClassifier.BITS_PER_LEVEL);
+	}
+
+	/**
+	 * Get the signature of consecutive ranks.
+	 * 
+	 * @param level
+	 *            The lowest level.
+	 * @param length
+	 *            The number of ranks.
+	 * @param count
+	 *            The number of cards of each rank.
+	 * @return The signature.
+	 */
+	private static long run(int level, int length, int count) {
+		long signature = 0L;
+		for (int l = level; l < level + length; l++) {
+			signature += repeat(l, count);
+		}
+		return signature;
+	}
+}
@@ -0,0 +1,206 @@
+package game.card;
+
+import java.util.Arrays;
+
+/**
+ * This class indexes all distinct plays of a deck, ignoring suits.
+ * 
+ * The plays are found by the LegalMoveGenerator from the deck created by
+ * CardFactory.createDeck() when the class is loaded, and are held as sorted
+ * PlayCodes. For each play, the plays that beat it and the plays beaten by it
+ * are computed once, and kept in ascending order of their codes. Thus the
+ * questions "which plays beat this play" and "which plays of these cards beat
+ * this play" are answered by a table lookup instead of comparing the plays
+ * again.
+ * 
+ * The arrays returned by this class are shared, and must not be modified.
+ * 
+ * @author Riki
+ * 
+ */
+public class PlayIndex {
+
+	/**
+	 * The codes of all plays, in ascending order.
+	 */
+	private static final int[] CODES;
+
+	/**
+	 * The codes of the plays that beat each play.
+	 */
+	private static final int[][] BEATERS;
+
+	/**
+	 * The codes of the plays beaten by each play.
+	 */
+	private static final int[][] BEATEN;
+
+	static {
+		final int[] codes = new int[LegalMoveGenerator.count(
+				CardFactory.createDeck(), null)];
+		LegalMoveGenerator.generate(CardFactory.createDeck(), null,
+				new IMoveVisitor() {
+					private int n = 0;
+
+					@Override
+					public void visit(CardsType type, int value, int size,
+							long signature) {
+						codes[n++] = PlayCode.of(type, value, size, signature);
+					}
+				});
+		Arrays.sort(codes);
+
+		CODES = codes;
+		BEATERS = new int[codes.length][];
+		BEATEN = new int[codes.length][];
+
+		int[] beaters = new int[codes.length];
+		int[] beaten = new int[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			for (int j = 0; j < codes.length; j++) {
+				if (PlayCode.beats(codes[j], codes[i])) {
+					beaters[i]++;
+					beaten[j]++;
+				}
+			}
+		}
+		for (int i = 0; i < codes.length; i++) {
+			BEATERS[i] = new int[beaters[i]];
+			BEATEN[i] = new int[beaten[i]];
+			beaters[i] = 0;
+			beaten[i] = 0;
+		}
+
+		// the codes are visited in ascending order, so are the lists.
+		for (int j = 0; j < codes.length; j++) {
+			for (int i = 0; i < codes.length; i++) {
+				if (PlayCode.beats(codes[j], codes[i])) {
+					BEATERS[i][beaters[i]++] = codes[j];
+					BEATEN[j][beaten[j]++] = codes[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the number of distinct plays.
+	 * 
+	 * @return The number of plays.
+	 */
+	public static int size() {
+		return CODES.length;
+	}
+
+	/**
+	 * Get the code of the i-th play.
+	 * 
+	 * @param i
+	 *            The index of the play.
+	 * @return The code of the play.
+	 */
+	public static int codeAt(int i) {
+		return CODES[i];
+	}
+
+	/**
+	 * Get the index of the play.
+	 * 
+	 * @param code
+	 *            The code of the play.
+	 * @return The index of the play, or -1 if the play is not in the deck.
+	 */
+	public static int indexOf(int code) {
+		int i = Arrays.binarySearch(CODES, code);
+		return (i < 0) ? -1 : i;
+	}
+
+	/**
+	 * Get the codes of the plays that beat the play.
+	 * 
+	 * @param code
+	 *            The code of the play.
+	 * @return The codes in ascending order. Empty if the play is not in the
+	 *         deck.
+	 */
+	public static int[] getBeaters(int code) {
+		int i = indexOf(code);
+		return (i < 0) ? new int[0] : BEATERS[i];
+	}
+
+	/**
+	 * Get the codes of the plays beaten by the play.
+	 * 
+	 * @param code
+	 *            The code of the play.
+	 * @return The codes in ascending order. Empty if the play is not in the
+	 *         deck.
+	 */
+	public static int[] getBeaten(int code) {
+		int i = indexOf(code);
+		return (i < 0) ? new int[0] : BEATEN[i];
+	}
+
+	/**
+	 * Count the plays that beat the play and that could be formed by the
+	 * cards, for example, the unknown cards.
+	 * 
+	 * @param code
+	 *            The code of the play.
+	 * @param cards
+	 *            The signature of the cards. See CardsClassifier.
+	 * @return The number of plays.
+	 */
+	public static int countBeaters(int code, long cards) {
+		int n = 0;
+		int[] beaters = getBeaters(code);
+		for (int i = 0; i < beaters.length; i++) {
+			if (contains(cards, PlayCode.signatureOf(beaters[i]))) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Find the given plays that beat the play, for example, the components of
+	 * a seed that beat the desk cards.
+	 * 
+	 * @param code
+	 *            The code of the play.
+	 * @param plays
+	 *            The codes of the plays.
+	 * @param result
+	 *            The array to hold the codes that beat the play, at least as
+	 *            long as plays.
+	 * @return The number of codes written into result.
+	 */
+	public static int findBeaters(int code, int[] plays, int[] result) {
+		int n = 0;
+		int[] beaters = getBeaters(code);
+		for (int i = 0; i < plays.length; i++) {
+			if (Arrays.binarySearch(beaters, plays[i]) >= 0) {
+				result[n++] = plays[i];
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Test if the cards of the play are contained in the cards.
+	 * 
+	 * @param cards
+	 *            The signature of the cards.
+	 * @param play
+	 *            The signature of the play.
+	 * @return True if each rank of the play has enough cards.
+	 */
+	public static boolean contains(long cards, long play) {
+		for (int l = 0; l < Rank.LEVELS; l++) {
+			if (CardsClassifier.countOf(cards, l) < CardsClassifier.countOf(
+					play, l)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -267,6 +267,36 @@ public enum Rank {
 	 */
 	public static final int STEP = 10;
 
+	/**
+	 * The number of levels. See getLevel().
+	 */
+	public static final int LEVELS = 14;
+
+	/**
+	 * The ranks indexed by their levels. null if no rank owns the level.
+	 */
+	private static final Rank[] RANKS_BY_LEVEL = new Rank[LEVELS];
+
+	static {
+		for (Rank r : Rank.values()) {
+			RANKS_BY_LEVEL[r.getLevel()] = r;
+		}
+	}
+
+	/**
+	 * Get the rank of the given level.
+	 * 
+	 * @param level
+	 *            The level of the rank.
+	 * @return The rank, or null if no rank owns the level.
+	 */
+	public static Rank getRank(int level) {
+		if (level < 0 || level >= LEVELS) {
+			return null;
+		}
+		return RANKS_BY_LEVEL[level];
+	}
+
 	/**
 	 * Given two Cards, card1 and card2: decide the relation of two cards with
 	 * regard to their ranks.
@@ -353,4 +383,16 @@ public enum Rank {
 	 * @return the int value of a rank.
 	 */
 	public abstract int getValue();
+
+	/**
+	 * Get the level of the Rank: the position of the rank when all ranks are
+	 * in ascending order of their values, THREE is 0, KING is 10, ACE is 11
+	 * and DEUCE is 13. There is no rank of level 12, thus two ranks are
+	 * consecutive if and only if their levels differ by 1.
+	 * 
+	 * @return the level of the rank.
+	 */
+	public int getLevel() {
+		return getValue() / STEP - 3;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+package game.card;
+
+import java.util.Random;
+
+/**
+ * This class provides the Zobrist keys of cards: each card owns a random
+ * 64-bit key, and the key of some cards is the exclusive or (XOR) of
+ * the keys of each card. Thus the key could be updated with one XOR when a card
+ * is added or removed.
+ *
+ * The cards of a game position play different roles: the hand of the AI, the
+ * cards on the desk and the unknown cards. Each role owns its own keys, such
+ * that the same card in different roles gives different keys, and the key of
+ * a position is the XOR of the keys of its parts.
+ *
+ * A Seed is a list of combinations, which are compared by their types and
+ * values. Each combination owns a key, and the key of a Seed is the sum of the
+ * keys of its combinations, thus the key does not depend on the order of the
+ * combinations, and two equal combinations do not cancel each other.
+ *
+ * The keys are generated by a fixed random seed, so they are the same for each
+ * run of the game.
+ *
+ * @author Riki
+ *
+ */
+public class Zobrist {
+
+	/**
+	 * The role of the cards: the cards on hand.
+	 */
+	public static final int HAND = 0;
+
+	/**
+	 * The role of the cards: the cards on the desk.
+	 */
+	public static final int DESK = 1;
+
+	/**
+	 * The role of the cards: the cards not appeared in the game.
+	 */
+	public static final int UNKNOWN = 2;
+
+	/**
+	 * The number of roles.
+	 */
+	private static final int ROLES = 3;
+
+	/**
+	 * The random seed to generate the keys.
+	 */
+	private static final long RANDOM_SEED = 0x5EEDCA4DL;
+
+	/**
+	 * The keys of the cards for each role, indexed by the ID of the cards.
+	 */
+	private static final long[][] CARD_KEYS;
+
+	/**
+	 * The keys of the combinations, indexed by the CardsType and the level of
+	 * the value.
+	 */
+	private static final long[][] COMBINATION_KEYS = new long[CardsType
+			.values().length][Rank.LEVELS];
+
+	static {
+		Random random = new Random(RANDOM_SEED);
+		CARD_KEYS = new long[ROLES][CardFactory.getMaxID() + 1];
+		for (int r = 0; r < ROLES; r++) {
+			for (int i = 0; i < CARD_KEYS[r].length; i++) {
+				CARD_KEYS[r][i] = random.nextLong();
+			}
+		}
+		for (int t = 0; t < COMBINATION_KEYS.length; t++) {
+			for (int l = 0; l < Rank.LEVELS; l++) {
+				COMBINATION_KEYS[t][l] = random.nextLong();
+			}
+		}
+	}
+
+	/**
+	 * Get the key of a card on hand.
+	 *
+	 * @param card
+	 *            The card.
+	 * @return The key of the card.
+	 */
+	public static long keyOf(Card card) {
+		return keyOf(card, HAND);
+	}
+
+	/**
+	 * Get the key of a card in the given role.
+	 *
+	 * @param card
+	 *            The card.
+	 * @param role
+	 *            The role: HAND, DESK or UNKNOWN.
+	 * @return The key of the card.
+	 */
+	public static long keyOf(Card card, int role) {
+		return CARD_KEYS[role][card.getID()];
+	}
+
+	/**
+	 * Get the key of the cards on hand.
+	 *
+	 * @param cards
+	 *            The cards.
+	 * @return The key of the cards.
+	 */
+	public static long keyOf(ICards cards) {
+		if (cards instanceof Cards) {
+			return ((Cards) cards).getZobristKey();
+		}
+		return keyOf(cards, HAND);
+	}
+
+	/**
+	 * Get the key of the cards in the given role.
+	 *
+	 * @param cards
+	 *            The cards.
+	 * @param role
+	 *            The role: HAND, DESK or UNKNOWN.
+	 * @return The key of the cards.
+	 */
+	public static long keyOf(ICards cards, int role) {
+		long key = 0L;
+		for (int i = 0; i < cards.getSize(); i++) {
+			key ^= CARD_KEYS[role][cards.getCard(i).getID()];
+		}
+		return key;
+	}
+
+	/**
+	 * Get the key of a combination in a Seed.
+	 *
+	 * @param type
+	 *            The CardsType of the combination.
+	 * @param value
+	 *            The value of the combination.
+	 * @return The key of the combination.
+	 */
+	public static long keyOf(CardsType type, int value) {
+		if (type == CardsType.ERR) {
+			return COMBINATION_KEYS[type.ordinal()][0];
+		}
+		return COMBINATION_KEYS[type.ordinal()][value / Rank.STEP - 3];
+	}
+
+	/**
+	 * Get the key of a game position.
+	 *
+	 * @param hand
+	 *            The cards on hand.
+	 * @param desk
+	 *            The cards on the desk.
+	 * @param unknown
+	 *            The cards not appeared in the game.
+	 * @return The key of the position.
+	 */
+	public static long keyOf(ICards hand, ICards desk, ICards unknown) {
+		return keyOf(hand, HAND) ^ keyOf(desk, DESK) ^ keyOf(unknown, UNKNOWN);
+	}
+}
@@ -1,6 +1,9 @@
 package game.util;
 
+import game.card.CardMask;
 import game.card.Cards;
+import game.card.PlayCode;
+import game.card.Zobrist;
 import game.sprite.SpriteManager;
 
 /**
@@ -26,6 +29,8 @@ public class GameEnvironment {
 
 	// cards to be compared with.
 	private Cards currentDesk;
+	// the play code of the current desk cards.
+	private int deskCode;
 
 	public GameEnvironment(SpriteManager mgr) {
 		this.manager = mgr;
@@ -47,6 +52,7 @@ public class GameEnvironment {
 		p1Desk = new Cards();
 		p2Desk = new Cards();
 		currentDesk = new Cards();
+		deskCode = PlayCode.PASS;
 		updateUnkown();
 	}
 
@@ -54,14 +60,12 @@ public class GameEnvironment {
 	 * Calculate the cards that have not appeared in the game.
 	 */
 	private void updateUnkown() {
-		unknown = (Cards) allCards.clone();
-
-		for (int i = 0; i < p1All.getSize(); i++) {
-			unknown.removeCard(p1All.getCard(i));
-		}
-		for (int i = 0; i < p2Desk.getSize(); i++) {
-			unknown.removeCard(p2Desk.getCard(i));
-		}
+		CardMask mask = new CardMask(allCards);
+
+		mask.removeAll(p1All);
+		mask.removeAll(p2Desk);
+
+		unknown = mask.toCards();
 	}
 
 	/**
@@ -109,6 +113,15 @@ public class GameEnvironment {
 		return (Cards) currentDesk.clone();
 	}
 
+	/**
+	 * Get the play code of the current desk cards. See PlayCode.
+	 * 
+	 * @return the play code, PlayCode.PASS if the desk is empty.
+	 */
+	public synchronized int getDeskCode() {
+		return deskCode;
+	}
+
 	/**
 	 * Get the current unknown cards.
 	 * 
@@ -118,6 +131,16 @@ public class GameEnvironment {
 		return (Cards) unknown.clone();
 	}
 
+	/**
+	 * Get the Zobrist key of the current position: the hand cards of player1,
+	 * the current desk cards and the unknown cards. See Zobrist.
+	 * 
+	 * @return The key of the current position.
+	 */
+	public synchronized long getPositionKey() {
+		return Zobrist.keyOf(p1Hand, currentDesk, unknown);
+	}
+
 	/**
 	 * Update the GameEnvironment.
 	 * 
@@ -136,6 +159,7 @@ public class GameEnvironment {
 		this.p1Desk = p1OnDesk;
 		this.p2Desk = p2OnDesk;
 		this.currentDesk = desk;
+		this.deskCode = PlayCode.of(desk);
 		updateUnkown();
 	}
 
@@ -1,6 +1,5 @@
 package test;
 
-import game.card.Card;
 import game.card.CardFactory;
 import game.card.Cards;
 import game.card.ICards;
@@ -29,7 +28,7 @@ public class CardsTest {
 			if (Rank.DEUCE == r1) {
 				continue;
 			}
-			simpleDeck.addCard(new Card(Suit.CLUBS, r1));
+			simpleDeck.addCard(CardFactory.createCard(Suit.CLUBS, r1));
 		}
 		System.out.println(simpleDeck);
 		
@@ -0,0 +1,51 @@
+package test;
+
+import game.card.CardMask;
+import game.card.CardsType;
+import game.card.CombinationEnumerator;
+
+/**
+ * The test classifies all k-card subsets of the deck by the table of the
+ * CardsClassifier, and verifies the result against CardsType.validateCards.
+ * 
+ * Usage: CombinationTest [maxK] [threads], by default all subsets of at most 5
+ * cards are verified with all processors.
+ * 
+ * @author Riki
+ * 
+ */
+public class CombinationTest {
+
+	public static void main(String[] args) {
+		int maxK = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+		CombinationEnumerator enumerator = (args.length > 1) ? new CombinationEnumerator(
+				Integer.parseInt(args[1])) : new CombinationEnumerator();
+
+		boolean passed = true;
+		for (int k = 1; k <= maxK; k++) {
+			long[] types = enumerator.classify(k,
+					CombinationEnumerator.FAST);
+			System.out.println(k + " cards: " + enumerator.getCount()
+					+ " subsets, "
+					+ (long) enumerator.getThroughput() + " / s (fast)");
+			for (CardsType t : CardsType.values()) {
+				if (types[t.ordinal()] > 0) {
+					System.out.println("\t" + t + ": " + types[t.ordinal()]);
+				}
+			}
+
+			long mismatches = enumerator.verify(k,
+					CombinationEnumerator.FAST,
+					CombinationEnumerator.REFERENCE);
+			System.out.println("\tverified: " + mismatches + " mismatches, "
+					+ (long) enumerator.getThroughput() + " / s");
+			for (long mask : enumerator.getSamples()) {
+				System.out.println("\t\t" + new CardMask(mask));
+			}
+			passed &= (mismatches == 0);
+		}
+		enumerator.shutdown();
+
+		System.out.println(passed ? "PASSED" : "FAILED");
+	}
+}
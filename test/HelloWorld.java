@@ -1,6 +1,7 @@
 package test;
 
 import game.card.Card;
+import game.card.CardFactory;
 import game.card.Rank;
 import game.card.Suit;
 
@@ -23,6 +24,6 @@ public class HelloWorld {
 		s += "o";
 		System.out.println(s);
 		
-		Card card = new Card(Suit.SPADES, Rank.ACE);
+		Card card = CardFactory.createCard(Suit.SPADES, Rank.ACE);
 	}
 }
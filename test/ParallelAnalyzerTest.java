@@ -0,0 +1,158 @@
+package test;
+
+import game.card.Card;
+import game.card.CardFactory;
+import game.card.Cards;
+import game.sprite.SpriteManager;
+import game.util.GameEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import ai.GameAI;
+import ai.util.Actions;
+import ai.util.Seed;
+
+/**
+ * The test creates the actions of the seeds of random positions in the current
+ * thread and with a pool, and verifies that the two lists are the same: the
+ * same values, strategies and sequences in the same order.
+ * 
+ * Usage: ParallelAnalyzerTest [positions] [threads], by default 50 positions
+ * are verified with 4 threads.
+ * 
+ * @author Riki
+ * 
+ */
+public class ParallelAnalyzerTest {
+
+	/**
+	 * The manager of the test, which ignores the reports and the cards
+	 * played by the AI.
+	 */
+	private static class TestManager extends SpriteManager {
+
+		public TestManager() {
+			super(null);
+		}
+
+		@Override
+		public void report(String msg) {
+		}
+
+		@Override
+		public void opponnetDashCards(Cards cs) {
+		}
+	}
+
+	public static void main(String[] args) {
+		int positions = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+		ForkJoinPool pool = new ForkJoinPool((args.length > 1) ? Integer
+				.parseInt(args[1]) : 4);
+		Random random = new Random(7);
+
+		int mismatches = 0;
+		int total = 0;
+		for (int n = 0; n < positions; n++) {
+			TestManager manager = new TestManager();
+			GameAI ai = new GameAI(manager);
+			GameEnvironment env = createEnvironment(manager, random);
+
+			// let the AI act once to set up the environment and the recorder.
+			ai.act(env);
+
+			Cards hand = env.getP1Hand();
+			ArrayList<Seed> seeds = ai.getSeedGenerator().generateSeeds(hand);
+
+			ai.setPool(null);
+			ArrayList<Actions> sequential = new ArrayList<Actions>(ai
+					.getAnalyzer().createActionsList(seeds));
+			ai.setPool(pool);
+			ArrayList<Actions> parallel = new ArrayList<Actions>(ai
+					.getAnalyzer().createActionsList(seeds));
+
+			total += sequential.size();
+			if (!same(sequential, parallel)) {
+				mismatches++;
+				System.out.println("\tmismatch: " + hand);
+			}
+		}
+		pool.shutdown();
+
+		System.out.println(positions + " positions, " + total + " actions, "
+				+ mismatches + " mismatches");
+		System.out.println((mismatches == 0) ? "PASSED" : "FAILED");
+	}
+
+	/**
+	 * Create a random position: the AI has played some of its cards, the
+	 * player has played some and may have cards on the desk.
+	 */
+	private static GameEnvironment createEnvironment(SpriteManager manager,
+			Random random) {
+		Cards deck = CardFactory.createDeck();
+		ArrayList<Card> all = new ArrayList<Card>();
+		for (int i = 0; i < deck.getSize(); i++) {
+			all.add(deck.getCard(i));
+		}
+		Collections.shuffle(all, random);
+
+		Cards p1All = new Cards();
+		for (int i = 0; i < 16; i++) {
+			p1All.addCard(all.get(i));
+		}
+		GameEnvironment env = new GameEnvironment(manager);
+		env.initEnvironment(deck, p1All);
+
+		int handSize = 8 + random.nextInt(9);
+		Cards p1Hand = new Cards();
+		Cards p1Desk = new Cards();
+		for (int i = 0; i < 16; i++) {
+			if (i < handSize) {
+				p1Hand.addCard(all.get(i));
+			} else {
+				p1Desk.addCard(all.get(i));
+			}
+		}
+
+		int p2Played = random.nextInt(10);
+		Cards p2Desk = new Cards();
+		for (int i = 0; i < p2Played; i++) {
+			p2Desk.addCard(all.get(16 + i));
+		}
+		Cards desk = new Cards();
+		if (random.nextBoolean()) {
+			desk.addCard(all.get(16 + p2Played));
+			p2Desk.addCard(all.get(16 + p2Played));
+		}
+		env.updateEnvironment(p1Desk, p1Hand, p2Desk, desk);
+		return env;
+	}
+
+	/**
+	 * Compare two lists of actions.
+	 */
+	private static boolean same(ArrayList<Actions> l1, ArrayList<Actions> l2) {
+		if (l1.size() != l2.size()) {
+			return false;
+		}
+		for (int i = 0; i < l1.size(); i++) {
+			Actions a1 = l1.get(i);
+			Actions a2 = l2.get(i);
+			if (a1.getValue() != a2.getValue()
+					|| a1.getStrategy() != a2.getStrategy()
+					|| a1.getSize() != a2.getSize()) {
+				return false;
+			}
+			for (int k = 0; k < a1.getSize(); k++) {
+				if (!a1.getCards(k).toString().equals(
+						a2.getCards(k).toString())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}